@@ -0,0 +1,235 @@
+package dev.tbm00.preprocessit;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Properties;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import dev.tbm00.preprocessit.model.Model;
+
+/**
+ * Runs a headless job that periodically checkpoints its progress, so a job that dies can be resumed instead of
+ * restarted.
+ *
+ * <p>A checkpoint is taken between batches: the output written so far is flushed and synced to disk, then a sidecar
+ * file ({@code <output>}{@value #CHECKPOINT_EXTENSION}) is atomically replaced with the input offset of the next
+ * unprocessed line, the number of lines processed, the output's length and CRC-32 at that point, a hash of the
+ * config and component, and the input's file key, size and modification time. Resuming checks the hash, that the
+ * input is the same unmodified file, and the output's checksum, truncates any output written after the checkpoint, and continues processing from the checkpointed input offset, appending to the output. The sidecar is
+ * deleted once the job completes.</p>
+ *
+ * <p>The input must be a file (gzip input is supported, but is decompressed up to the offset on resume) and the output
+ * an uncompressed file, since a cut-off gzip stream can't be appended to.</p>
+ */
+public class CheckpointedJob {
+
+    /** Extension appended to the output path for the checkpoint sidecar. */
+    public static final String CHECKPOINT_EXTENSION = ".ckpt";
+
+    private static final String KEY_INPUT = "input";
+    private static final String KEY_INPUT_FILE_ID = "inputFileId";
+    private static final String KEY_INPUT_SIZE = "inputSize";
+    private static final String KEY_INPUT_MODIFIED = "inputModified";
+    private static final String KEY_INPUT_OFFSET = "inputOffset";
+    private static final String KEY_LINES_PROCESSED = "linesProcessed";
+    private static final String KEY_OUTPUT_LENGTH = "outputLength";
+    private static final String KEY_OUTPUT_CRC32 = "outputCrc32";
+    private static final String KEY_CONFIG_HASH = "configHash";
+
+    private final Model model;
+    private final String inputPath;
+    private final Path outputPath;
+    private final Path checkpointPath;
+    private final String configHash;
+    private final long intervalMillis;
+    private String inputFileId;
+    private long inputSize;
+    private long inputModified;
+
+    /**
+     * Constructs a new CheckpointedJob.
+     *
+     * @param model           the model, with its config loaded and component selected
+     * @param configPath      the config file, hashed with the selected component to detect config changes
+     * @param inputPath       the input file
+     * @param outputPath      the (uncompressed) output file
+     * @param intervalSeconds the minimum time between checkpoints
+     * @throws IOException if the config file can't be read
+     */
+    public CheckpointedJob(Model model, Path configPath, String inputPath, String outputPath, int intervalSeconds) throws IOException {
+        this.model = model;
+        this.inputPath = Paths.get(inputPath).toAbsolutePath().toString();
+        this.outputPath = Paths.get(outputPath).toAbsolutePath();
+        this.checkpointPath = Paths.get(this.outputPath + CHECKPOINT_EXTENSION);
+        this.configHash = StaticUtil.configFingerprint(configPath, model.getSelectedComponent().getName());
+        this.intervalMillis = intervalSeconds * 1000L;
+    }
+
+    /**
+     * Runs the job from the start, or from its checkpoint.
+     *
+     * @param resume {@code true} to continue from the checkpoint, {@code false} to start over
+     * @throws IOException if there is no usable checkpoint to resume from, or reading the input or writing the output
+     *                     or checkpoint fails
+     */
+    public void run(boolean resume) throws IOException {
+        long inputOffset = 0, linesProcessed = 0, outputLength = 0;
+        CRC32 crc = new CRC32();
+        readInputAttributes();
+        if (resume) {
+            Properties checkpoint = readCheckpoint();
+            inputOffset = Long.parseLong(checkpoint.getProperty(KEY_INPUT_OFFSET));
+            linesProcessed = Long.parseLong(checkpoint.getProperty(KEY_LINES_PROCESSED));
+            outputLength = Long.parseLong(checkpoint.getProperty(KEY_OUTPUT_LENGTH));
+            verifyOutput(outputLength, Long.parseLong(checkpoint.getProperty(KEY_OUTPUT_CRC32)), crc);
+            StaticUtil.log("Resuming after line " + linesProcessed + " (input byte " + inputOffset + ")");
+        } else {
+            Files.deleteIfExists(checkpointPath);
+        }
+
+        final long firstLine = linesProcessed;
+        final long[] written = {outputLength};
+        final long[] lastCheckpoint = {System.currentTimeMillis()};
+        try (FileOutputStream file = new FileOutputStream(outputPath.toFile(), resume);
+             BufferedReader reader = StreamUtil.openReader(inputPath, inputOffset);
+             BufferedWriter writer = StreamUtil.openWriter(new CheckedOutputStream(file, crc) {
+                 @Override public void write(byte[] b, int off, int len) throws IOException {
+                     super.write(b, off, len);
+                     written[0] += len;
+                 }
+                 @Override public void write(int b) throws IOException {
+                     super.write(b);
+                     written[0]++;
+                 }
+             })) {
+            // drop output written after the checkpoint
+            if (resume) file.getChannel().truncate(outputLength);
+            // the model flushes the writer before every callback, so all output so far has reached the file
+            model.processStream(reader, writer, lines -> {
+                long now = System.currentTimeMillis();
+                if (now - lastCheckpoint[0] < intervalMillis) return true;
+                try {
+                    file.getFD().sync();
+                    writeCheckpoint(StreamUtil.inputOffset(reader), firstLine + lines, written[0], crc.getValue());
+                } catch (IOException e) {
+                    StaticUtil.log("Error writing checkpoint: " + e.getMessage());
+                }
+                lastCheckpoint[0] = now;
+                return true;
+            });
+        }
+        Files.deleteIfExists(checkpointPath);
+    }
+
+    /**
+     * Records the input's identity, size and modification time, which a resumed job's input must still have.
+     *
+     * @throws IOException if the input's attributes can't be read
+     */
+    private void readInputAttributes() throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(Paths.get(inputPath), BasicFileAttributes.class);
+        Object key = attributes.fileKey();
+        inputFileId = (key != null) ? key.toString() : attributes.creationTime().toString();
+        inputSize = attributes.size();
+        inputModified = attributes.lastModifiedTime().toMillis();
+    }
+
+    /**
+     * Checks that the output's first {@code length} bytes have the checkpointed checksum.
+     *
+     * @param length   the checkpointed output length
+     * @param expected the checkpointed CRC-32
+     * @param crc      the checksum to update with those bytes, to continue from
+     * @throws IOException if the output is shorter or doesn't match
+     */
+    private void verifyOutput(long length, long expected, CRC32 crc) throws IOException {
+        if (!Files.exists(outputPath) || Files.size(outputPath) < length) {
+            throw new IOException("Output is shorter than its checkpoint: " + outputPath);
+        }
+        byte[] buffer = new byte[1 << 16];
+        long remaining = length;
+        try (InputStream in = Files.newInputStream(outputPath)) {
+            int n;
+            while (remaining > 0 && (n = in.read(buffer, 0, (int) Math.min(remaining, buffer.length))) > 0) {
+                crc.update(buffer, 0, n);
+                remaining -= n;
+            }
+        }
+        if (crc.getValue() != expected) {
+            throw new IOException("Output no longer matches its checkpoint: " + outputPath);
+        }
+    }
+
+    /**
+     * Reads the checkpoint, checking it belongs to this input, config and component, and that the input hasn't been
+     * replaced or modified since.
+     *
+     * @return the checkpoint's properties
+     * @throws IOException if it is missing, malformed or belongs to a different job
+     */
+    private Properties readCheckpoint() throws IOException {
+        if (!Files.exists(checkpointPath)) throw new IOException("No checkpoint to resume from: " + checkpointPath);
+        Properties checkpoint = new Properties();
+        try (Reader reader = Files.newBufferedReader(checkpointPath, StandardCharsets.UTF_8)) {
+            checkpoint.load(reader);
+        }
+        for (String key : new String[] {KEY_INPUT_OFFSET, KEY_LINES_PROCESSED, KEY_OUTPUT_LENGTH, KEY_OUTPUT_CRC32}) {
+            try {
+                Long.parseLong(checkpoint.getProperty(key));
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed checkpoint " + checkpointPath + ": bad " + key);
+            }
+        }
+        if (!inputPath.equals(checkpoint.getProperty(KEY_INPUT))) {
+            throw new IOException("Checkpoint " + checkpointPath + " is for input " + checkpoint.getProperty(KEY_INPUT));
+        }
+        if (!inputFileId.equals(checkpoint.getProperty(KEY_INPUT_FILE_ID))
+                || !String.valueOf(inputSize).equals(checkpoint.getProperty(KEY_INPUT_SIZE))
+                || !String.valueOf(inputModified).equals(checkpoint.getProperty(KEY_INPUT_MODIFIED))) {
+            throw new IOException("Input " + inputPath + " was replaced or modified since checkpoint " + checkpointPath);
+        }
+        if (!configHash.equals(checkpoint.getProperty(KEY_CONFIG_HASH))) {
+            throw new IOException("Config or component changed since checkpoint " + checkpointPath);
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Writes the checkpoint, replacing the previous one atomically so it's never seen half-written.
+     *
+     * @param inputOffset    the input offset of the next unprocessed line
+     * @param linesProcessed the number of input lines processed
+     * @param outputLength   the number of output bytes written
+     * @param outputCrc      the CRC-32 of the output bytes written
+     * @throws IOException if the checkpoint can't be written
+     */
+    private void writeCheckpoint(long inputOffset, long linesProcessed, long outputLength, long outputCrc) throws IOException {
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty(KEY_INPUT, inputPath);
+        checkpoint.setProperty(KEY_INPUT_FILE_ID, inputFileId);
+        checkpoint.setProperty(KEY_INPUT_SIZE, String.valueOf(inputSize));
+        checkpoint.setProperty(KEY_INPUT_MODIFIED, String.valueOf(inputModified));
+        checkpoint.setProperty(KEY_INPUT_OFFSET, String.valueOf(inputOffset));
+        checkpoint.setProperty(KEY_LINES_PROCESSED, String.valueOf(linesProcessed));
+        checkpoint.setProperty(KEY_OUTPUT_LENGTH, String.valueOf(outputLength));
+        checkpoint.setProperty(KEY_OUTPUT_CRC32, String.valueOf(outputCrc));
+        checkpoint.setProperty(KEY_CONFIG_HASH, configHash);
+        Path temp = Paths.get(checkpointPath + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            checkpoint.store(writer, "PreProcessIt checkpoint");
+        }
+        Files.move(temp, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
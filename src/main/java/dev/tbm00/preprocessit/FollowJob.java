@@ -0,0 +1,293 @@
+package dev.tbm00.preprocessit;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import dev.tbm00.preprocessit.model.Model;
+
+/**
+ * Follows a growing input file like {@code tail -F}, processing its lines as they're appended.
+ *
+ * <p>The lines already in the file are processed first, then the file is kept open and every newly appended line
+ * is processed as soon as the file's directory reports a change (or within {@value #POLL_MILLIS} ms, where change
+ * notifications aren't available). Only complete lines, ending with {@code \n}, are processed; a line still being
+ * written waits for its line break. Output is appended to the output file (or written to stdout) and flushed after
+ * every batch.</p>
+ *
+ * <p>The read offset is saved after every processed chunk to a state file ({@code <output>}{@value #STATE_EXTENSION},
+ * or {@code <input>}{@value #STATE_EXTENSION} when writing to stdout), along with the input file's identity, so a
+ * restarted follower picks up where it left off. A line processed just before a crash may be output again after the
+ * restart, but no line is skipped. If the file shrinks below the offset it was truncated and is followed again from
+ * its start; if the path now names a different file it was rotated, so the rest of the old file (including a last
+ * unterminated line) is processed before following the new one from its start.</p>
+ */
+public class FollowJob {
+
+    /** Extension appended to the output (or input) path for the follow state file. */
+    public static final String STATE_EXTENSION = ".follow";
+
+    private static final long POLL_MILLIS = 1000;
+    /** Appended input is processed in chunks of about this many bytes, saving the offset after each. */
+    private static final long MAX_CHUNK_BYTES = 64L << 20;
+
+    private static final String KEY_INPUT = "input";
+    private static final String KEY_FILE_ID = "fileId";
+    private static final String KEY_OFFSET = "offset";
+
+    private final Model model;
+    private final Path inputPath;
+    private final String outputPath;
+    private final Path statePath;
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile boolean stopped;
+
+    private FileChannel channel;
+    private String fileId;
+    private long offset;
+
+    /**
+     * Constructs a new FollowJob.
+     *
+     * @param model      the model, with its config loaded and component selected
+     * @param inputPath  the input file to follow
+     * @param outputPath the (uncompressed) output file to append to, or {@value StreamUtil#STDIO_PATH} for stdout
+     */
+    public FollowJob(Model model, String inputPath, String outputPath) {
+        this.model = model;
+        this.inputPath = Paths.get(inputPath).toAbsolutePath();
+        this.outputPath = outputPath;
+        this.statePath = Paths.get((StreamUtil.isStdio(outputPath) ? this.inputPath : Paths.get(outputPath).toAbsolutePath())
+                                   + STATE_EXTENSION);
+    }
+
+    /**
+     * Follows the input until {@link #stop()} is called.
+     *
+     * @throws IOException if reading the input or writing the output or state fails
+     */
+    public void run() throws IOException {
+        try (WatchService watcher = FileSystems.getDefault().newWatchService();
+             BufferedWriter writer = StreamUtil.isStdio(outputPath)
+                     ? StreamUtil.openWriter(outputPath)
+                     : StreamUtil.openWriter(new FileOutputStream(outputPath, true))) {
+            inputPath.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            restoreState();
+            while (!stopped) {
+                if (processAppended(writer)) continue;
+                WatchKey key = watcher.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (channel != null) channel.close();
+            finished.countDown();
+        }
+    }
+
+    /**
+     * Asks the follower to stop after its current chunk, waiting a few seconds for it to do so.
+     *
+     * @return {@code true} if the follower stopped in time, {@code false} if it's still running
+     */
+    public boolean stop() {
+        stopped = true;
+        try {
+            return finished.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Opens the input and picks the offset to start from: the saved one if the state belongs to this same file and
+     * the file hasn't shrunk below it, otherwise the start of the file.
+     *
+     * @throws IOException if the state file can't be read
+     */
+    private void restoreState() throws IOException {
+        if (!open()) return;
+        if (!Files.exists(statePath)) return;
+        Properties state = new Properties();
+        try (Reader reader = Files.newBufferedReader(statePath, StandardCharsets.UTF_8)) {
+            state.load(reader);
+        }
+        long saved;
+        try {
+            saved = Long.parseLong(state.getProperty(KEY_OFFSET));
+        } catch (NumberFormatException e) {
+            StaticUtil.log("Follow state " + statePath + " is malformed, following " + inputPath + " from its start");
+            return;
+        }
+        if (!inputPath.toString().equals(state.getProperty(KEY_INPUT)) || !fileId.equals(state.getProperty(KEY_FILE_ID))) {
+            StaticUtil.log("Follow state " + statePath + " is for another file, following " + inputPath + " from its start");
+        } else if (saved > channel.size()) {
+            StaticUtil.log(inputPath + " was truncated, following it from its start");
+        } else {
+            offset = saved;
+            StaticUtil.log("Following " + inputPath + " from byte " + offset);
+        }
+    }
+
+    /**
+     * Opens the file currently at the input path, to be followed from its start.
+     *
+     * @return {@code false} if there is no file at the path (yet)
+     */
+    private boolean open() {
+        try {
+            channel = FileChannel.open(inputPath, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return false;
+        }
+        fileId = identity(inputPath);
+        offset = 0;
+        if (fileId == null) {
+            // replaced between opening and identifying it; try again later
+            try {
+                channel.close();
+            } catch (IOException e) {
+                StaticUtil.log("Error closing " + inputPath + ": " + e.getMessage());
+            }
+            channel = null;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Processes the complete lines appended since the last call, handling truncation and rotation first.
+     *
+     * @param writer the output
+     * @return {@code true} if anything changed, so the caller should check again without waiting
+     * @throws IOException if reading the input or writing the output or state fails
+     */
+    private boolean processAppended(BufferedWriter writer) throws IOException {
+        if (channel == null) return open();
+
+        String currentId = identity(inputPath);
+        if (currentId != null && !currentId.equals(fileId)) {
+            // finish the old file, whose last line won't be continued, and move on to the new one
+            long size = channel.size();
+            if (size > offset) process(writer, size);
+            StaticUtil.log(inputPath + " was rotated, following the new file from its start");
+            channel.close();
+            channel = null;
+            if (open()) saveState();
+            return true;
+        }
+
+        long size = channel.size();
+        if (size < offset) {
+            StaticUtil.log(inputPath + " was truncated, following it from its start");
+            offset = 0;
+            saveState();
+            return true;
+        }
+        long end = lastLineEnd(offset, Math.min(size, offset + MAX_CHUNK_BYTES));
+        if (end <= offset && size > offset + MAX_CHUNK_BYTES) end = lastLineEnd(offset, size);
+        if (end <= offset) return false;
+        process(writer, end);
+        return true;
+    }
+
+    /**
+     * Processes the input from the offset up to {@code end}, then saves the new offset.
+     *
+     * @param writer the output
+     * @param end    the byte just past the last line to process
+     * @throws IOException if reading the input or writing the output or state fails
+     */
+    private void process(BufferedWriter writer, long end) throws IOException {
+        try (BufferedReader reader = StreamUtil.openReader(channel, offset, end)) {
+            model.processStream(reader, writer);
+        }
+        offset = end;
+        saveState();
+    }
+
+    /**
+     * Finds the end of the last complete line within {@code [from, to)} of the input, scanning back from {@code to}.
+     *
+     * @param from the first byte to consider
+     * @param to   the byte just past the last one to consider
+     * @return the offset just past the last {@code \n}, or {@code from} if there is none
+     * @throws IOException if reading the input fails
+     */
+    private long lastLineEnd(long from, long to) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(1 << 16);
+        long chunkEnd = to;
+        while (chunkEnd > from) {
+            long chunkStart = Math.max(from, chunkEnd - chunk.capacity());
+            chunk.clear();
+            chunk.limit((int) (chunkEnd - chunkStart));
+            while (chunk.hasRemaining()) {
+                if (channel.read(chunk, chunkStart + chunk.position()) <= 0) break;
+            }
+            for (int i = chunk.position() - 1; i >= 0; i--) {
+                if (chunk.get(i) == '\n') return chunkStart + i + 1;
+            }
+            chunkEnd = chunkStart;
+        }
+        return from;
+    }
+
+    /**
+     * Writes the state file, replacing the previous one atomically so it's never seen half-written.
+     *
+     * @throws IOException if the state file can't be written
+     */
+    private void saveState() throws IOException {
+        Properties state = new Properties();
+        state.setProperty(KEY_INPUT, inputPath.toString());
+        state.setProperty(KEY_FILE_ID, fileId);
+        state.setProperty(KEY_OFFSET, String.valueOf(offset));
+        Path temp = Paths.get(statePath + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            state.store(writer, "PreProcessIt follow state");
+        }
+        Files.move(temp, statePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Identifies the file at a path, so a rotated file can be told apart from the one that replaced it.
+     *
+     * @param path the path
+     * @return the file's key (device and inode) where available, otherwise its creation time, or {@code null} if
+     *         there is no file at the path
+     */
+    private static String identity(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            Object key = attributes.fileKey();
+            return (key != null) ? key.toString() : attributes.creationTime().toString();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package dev.tbm00.preprocessit;
 
 import java.awt.GraphicsEnvironment;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -15,22 +18,27 @@ import javax.swing.UIManager;
 
 import dev.tbm00.preprocessit.controller.Controller;
 import dev.tbm00.preprocessit.model.Model;
+import dev.tbm00.preprocessit.model.ResultStore;
 import dev.tbm00.preprocessit.model.data.Component;
 import dev.tbm00.preprocessit.view.View;
 
 public class PreProcessIt {
 
+    private static final int DEFAULT_CHECKPOINT_SECONDS = 60;
+    private static final long DEFAULT_RESULT_STORE_MAX_MB = 1024;
+
     /**
      * Entry point for the PreProcessIt application. Determines whether to run in
      * headless (CLI) mode or GUI mode based on the environment (headless JVM) or
-     * presence of the {@code --input} flag. In CLI mode, delegates to
+     * presence of the {@code --input} or {@code --config} flag. In CLI mode, delegates to
      * {@link #runHeadless(String[]) runHeadless}; otherwise, initializes the
      * Swing-based GUI.
      *
      * @param args command-line arguments
      */
     public static void main(String[] args) {
-        boolean cliMode = GraphicsEnvironment.isHeadless() || Arrays.asList(args).contains("--input");
+        boolean cliMode = GraphicsEnvironment.isHeadless() || Arrays.asList(args).contains("--input")
+                                                             || Arrays.asList(args).contains("--config");
         // ----- CLI mode -----
         if (cliMode) {
             try {
@@ -60,38 +68,162 @@ public class PreProcessIt {
      * Runs the application in pure-CLI (headless) mode. Parses the provided
      * arguments for configuration, component selection, input and output file
      * paths. Loads the YAML configuration, optionally filters for the requested
-     * component (or defaults to the first one), reads the input file, processes
-     * the data, and writes the result to the specified output file.
+     * component (or defaults to the first one), then streams the input through
+     * the model and writes each processed batch to the output as it completes.
+     * An input or output path of {@code -} (or an omitted one) refers to standard
+     * input or standard output, so the tool can sit in the middle of a pipeline.
      *
      * @param args command-line arguments. Supported flags:
      *             <ul>
      *               <li>{@code --config <path>}: path to YAML config file</li>
      *               <li>{@code --component <name>}: (optional) name of the component to select</li>
-     *               <li>{@code --input <path>}: path to the input text file (triggers CLI mode)</li>
-     *               <li>{@code --output <path>}: path to write the output CSV</li>
-     *               <li>{@code --log}: (optional) output log to terminal</li>
+     *               <li>{@code --input <path|->}: (optional) path to the input text file, defaults to stdin</li>
+     *               <li>{@code --output <path|->}: (optional) path to write the output CSV, defaults to stdout</li>
+     *               <li>{@code --log}: (optional) output log to terminal (stderr when writing to stdout), with every
+     *                   line's qualifier/action trace</li>
+     *               <li>{@code --explain-line <n>}: (optional) instead of processing, write the trace of input line {@code n}</li>
+     *               <li>{@code --explain-filter <text>}: (optional) instead of processing, write the trace of every input
+     *                   line containing {@code text}</li>
+     *               <li>{@code --shards <n>}: (optional) split the input file into {@code n} shards processed by separate
+     *                   worker processes, merging their outputs in order (see {@link ShardCoordinator})</li>
+     *               <li>{@code --worker-hosts <host,...>}: (optional) with {@code --shards}, run the workers on these hosts
+     *                   over ssh in turn ({@value ShardCoordinator#LOCAL_HOST} runs one locally)</li>
+     *               <li>{@code --input-range <start:end>}: (optional) only process bytes {@code start} to {@code end} of the
+     *                   input file, which must start and end on line boundaries (used by shard workers)</li>
+     *               <li>{@code --checkpoint <seconds>}: (optional) checkpoint progress to {@code <output>.ckpt} at most
+     *                   this often (see {@link CheckpointedJob})</li>
+     *               <li>{@code --resume}: (optional) continue from the output's checkpoint instead of starting over,
+     *                   checkpointing every {@value #DEFAULT_CHECKPOINT_SECONDS} seconds unless {@code --checkpoint} is given</li>
+     *               <li>{@code --follow}: (optional) keep following the input file, processing lines as they're appended
+     *                   until stopped (see {@link FollowJob})</li>
+     *               <li>{@code --watch-dir <dir>}: (optional) instead of one input, keep processing every file that lands
+     *                   in {@code dir} until stopped, needs {@code --output-dir} (see {@link WatchFolderJob})</li>
+     *               <li>{@code --output-dir <dir>}: with {@code --watch-dir}, the directory to write outputs to</li>
+     *               <li>{@code --processed-dir <dir>}: (optional) with {@code --watch-dir}, move processed files here instead
+     *                   of marking them in place</li>
+     *               <li>{@code --file-workers <n>}: (optional) with {@code --watch-dir}, the number of files to process at
+     *                   once, defaults to the configured pool size or the number of processors</li>
+     *               <li>{@code --result-store <dir>}: (optional) keep every line's output in a persistent store in
+     *                   {@code dir}, and serve lines processed by earlier runs of the same config from it (see
+     *                   {@link ResultStore})</li>
+     *               <li>{@code --result-store-max-mb <n>}: (optional) the size the result store may grow to, defaults to
+     *                   {@value #DEFAULT_RESULT_STORE_MAX_MB}</li>
      *             </ul>
-     * @throws IOException if reading the input file or writing the output file fails.
+     * @throws IOException if reading the input or writing the output fails.
      */
     private static void runHeadless(String[] args) throws IOException {
-        Path configPath = null, inputPath = null, outputPath = null;
+        Path configPath = null;
+        String inputPath = StreamUtil.STDIO_PATH, outputPath = StreamUtil.STDIO_PATH;
         String requestedComponent = null;
+        boolean logEnabled = false;
+        int explainLine = 0;
+        String explainFilter = null;
+        int shardCount = 0;
+        List<String> workerHosts = new ArrayList<>();
+        long[] inputRange = null;
+        int checkpointSeconds = 0;
+        boolean resume = false;
+        boolean follow = false;
+        String watchDir = null, outputDir = null, processedDir = null;
+        int fileWorkers = 0;
+        String resultStoreDir = null;
+        long resultStoreMaxMb = DEFAULT_RESULT_STORE_MAX_MB;
 
         for (int i = 0; i < args.length; i++) {
             switch (args[i]) {
                 case "--config":  configPath = Paths.get(args[++i]); break;
-                case "--input":   inputPath  = Paths.get(args[++i]); break;
-                case "--output":  outputPath = Paths.get(args[++i]); break;
+                case "--input":   inputPath  = args[++i]; break;
+                case "--output":  outputPath = args[++i]; break;
                 case "--component": requestedComponent = args[++i]; break;
-                case "--log": StaticUtil.enableConsoleLogging(); System.out.println("log enabled");break;
+                case "--log": logEnabled = true; break;
+                case "--explain-line":
+                    try {
+                        explainLine = Integer.parseInt(args[++i]);
+                    } catch (NumberFormatException e) {
+                        explainLine = -1;
+                    }
+                    break;
+                case "--explain-filter": explainFilter = args[++i]; break;
+                case "--shards":
+                    try {
+                        shardCount = Integer.parseInt(args[++i]);
+                    } catch (NumberFormatException e) {
+                        shardCount = -1;
+                    }
+                    break;
+                case "--worker-hosts":
+                    for (String host : args[++i].split(",")) {
+                        if (!host.trim().isEmpty()) workerHosts.add(host.trim());
+                    }
+                    break;
+                case "--input-range": inputRange = parseRange(args[++i]); break;
+                case "--checkpoint":
+                    try {
+                        checkpointSeconds = Integer.parseInt(args[++i]);
+                    } catch (NumberFormatException e) {
+                        checkpointSeconds = -1;
+                    }
+                    break;
+                case "--resume": resume = true; break;
+                case "--follow": follow = true; break;
+                case "--watch-dir": watchDir = args[++i]; break;
+                case "--output-dir": outputDir = args[++i]; break;
+                case "--processed-dir": processedDir = args[++i]; break;
+                case "--result-store": resultStoreDir = args[++i]; break;
+                case "--result-store-max-mb":
+                    try {
+                        resultStoreMaxMb = Long.parseLong(args[++i]);
+                    } catch (NumberFormatException e) {
+                        resultStoreMaxMb = -1;
+                    }
+                    break;
+                case "--file-workers":
+                    try {
+                        fileWorkers = Integer.parseInt(args[++i]);
+                    } catch (NumberFormatException e) {
+                        fileWorkers = -1;
+                    }
+                    break;
             }
         }
-        if (configPath == null || inputPath == null || outputPath == null) {
+        if (configPath == null || explainLine < 0 || shardCount < 0 || checkpointSeconds < 0 || fileWorkers < 0 || resultStoreMaxMb <= 0
+                || (watchDir != null && outputDir == null)
+                || (inputRange != null && (inputRange[0] < 0 || inputRange[1] < inputRange[0]))) {
             System.err.println(
-                "Usage: java -jar PreProcessIt-0.1.9.1-beta.jar --config <config.yml> [--component <name>] --input <input.txt> --output <output.csv> [--log]"
+                "Usage: java -jar PreProcessIt-0.1.9.1-beta.jar --config <config.yml> [--component <name>] [--input <input.txt|->] [--output <output.csv|->] [--log]"
+                + " [--explain-line <n>] [--explain-filter <text>] [--shards <n> [--worker-hosts <host,...>]] [--input-range <start:end>]"
+                + " [--checkpoint <seconds>] [--resume] [--follow]"
+                + " [--watch-dir <dir> --output-dir <dir> [--processed-dir <dir>] [--file-workers <n>]]"
+                + " [--result-store <dir> [--result-store-max-mb <n>]]"
             );
             System.exit(1);
         }
+        if ((shardCount > 1 || inputRange != null)
+                && (StreamUtil.isStdio(inputPath) || StreamUtil.isGzipFile(Paths.get(inputPath)))) {
+            System.err.println("Error: --shards and --input-range need an uncompressed input file");
+            System.exit(1);
+        }
+        boolean checkpointed = checkpointSeconds > 0 || resume;
+        if (checkpointed && (StreamUtil.isStdio(inputPath) || StreamUtil.isStdio(outputPath)
+                             || StreamUtil.isGzipPath(outputPath) || shardCount > 1 || inputRange != null)) {
+            System.err.println("Error: --checkpoint and --resume need an input file and an uncompressed output file, without --shards or --input-range");
+            System.exit(1);
+        }
+        if (resultStoreDir != null && shardCount > 1) {
+            System.err.println("Error: --result-store can't be shared by --shards workers");
+            System.exit(1);
+        }
+        if (follow && (StreamUtil.isStdio(inputPath) || (Files.exists(Paths.get(inputPath)) && StreamUtil.isGzipFile(Paths.get(inputPath)))
+                       || StreamUtil.isGzipPath(outputPath) || checkpointed || shardCount > 1 || inputRange != null)) {
+            System.err.println("Error: --follow needs an uncompressed input file and output, without --shards, --input-range, --checkpoint or --resume");
+            System.exit(1);
+        }
+        if (logEnabled) {
+            // keep stdout clean for piped output
+            PrintStream logStream = StreamUtil.isStdio(outputPath) ? System.err : System.out;
+            StaticUtil.enableConsoleLogging(logStream);
+            logStream.println("log enabled");
+        }
 
         // load config
         Model model = new Model();
@@ -119,16 +251,139 @@ public class PreProcessIt {
             model.setSelectedComponent(comps.get(0).getName());
         }
 
-        // read input file
-        byte[] inBytes = Files.readAllBytes(inputPath);
-        String input = new String(inBytes, StandardCharsets.UTF_8);
-        model.setInputText(input);
+        if (logEnabled) model.setTracingForced(true);
+
+        // explain the requested lines instead of processing
+        if (explainLine > 0 || explainFilter != null) {
+            try (BufferedReader reader = StreamUtil.openReader(inputPath);
+                 BufferedWriter writer = StreamUtil.openWriter(outputPath)) {
+                explainLines(model, reader, writer, explainLine, explainFilter);
+            }
+            return;
+        }
+
+        // serve lines processed by earlier runs from the result store
+        final ResultStore store = (resultStoreDir != null)
+                ? new ResultStore(Paths.get(resultStoreDir),
+                                  StaticUtil.configFingerprint(configPath, model.getSelectedComponent().getName()),
+                                  resultStoreMaxMb << 20)
+                : null;
+        model.setResultStore(store);
+
+        try {
+            // split the input across worker processes
+            if (shardCount > 1) {
+                List<String> workerArgs = new ArrayList<>(Arrays.asList(
+                    "--config", configPath.toAbsolutePath().toString(),
+                    "--component", model.getSelectedComponent().getName()));
+                if (logEnabled) workerArgs.add("--log");
+                ShardCoordinator coordinator = new ShardCoordinator(inputPath, outputPath, workerArgs, workerHosts);
+                if (!coordinator.run(shardCount)) System.exit(4);
+                return;
+            }
+
+            // keep processing files landing in the watched directory until stopped
+            if (watchDir != null) {
+                if (fileWorkers == 0) fileWorkers = model.getConfigHandler().getConfiguredPoolSize();
+                if (fileWorkers <= 0) fileWorkers = Runtime.getRuntime().availableProcessors();
+                WatchFolderJob job = new WatchFolderJob(model, watchDir, outputDir, processedDir, fileWorkers);
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    // closing the store under a job still running would fail its work in progress
+                    if (job.stop()) closeResultStore(store);
+                }, "PreProcessIt-watch-stop"));
+                job.run();
+                return;
+            }
+
+            // keep processing lines appended to the input until stopped
+            if (follow) {
+                FollowJob job = new FollowJob(model, inputPath, outputPath);
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    // closing the store under a job still running would fail its work in progress
+                    if (job.stop()) closeResultStore(store);
+                }, "PreProcessIt-follow-stop"));
+                job.run();
+                return;
+            }
+
+            // stream input through the model into the output, checkpointing along the way
+            if (checkpointed) {
+                CheckpointedJob job = new CheckpointedJob(model, configPath, inputPath, outputPath,
+                        (checkpointSeconds > 0) ? checkpointSeconds : DEFAULT_CHECKPOINT_SECONDS);
+                try {
+                    job.run(resume);
+                } catch (IOException e) {
+                    System.err.println("Error: " + e.getMessage());
+                    System.exit(5);
+                }
+                return;
+            }
+
+            // stream input through the model into the output
+            try (BufferedReader reader = (inputRange != null)
+                        ? StreamUtil.openReader(inputPath, inputRange[0], inputRange[1])
+                        : StreamUtil.openReader(inputPath);
+                 BufferedWriter writer = StreamUtil.openWriter(outputPath)) {
+                model.processStream(reader, writer);
+            }
+        } finally {
+            closeResultStore(store);
+        }
+    }
+
+    /**
+     * Closes the result store, if there is one, logging instead of throwing on failure.
+     *
+     * @param store the result store, or {@code null}
+     */
+    private static void closeResultStore(ResultStore store) {
+        if (store == null) return;
+        try {
+            store.close();
+        } catch (IOException e) {
+            StaticUtil.log("Error closing result store: " + e.getMessage());
+        }
+    }
 
-        // process
-        String result = model.processData();
+    /**
+     * Parses a {@code start:end} byte range argument.
+     *
+     * @param range the argument
+     * @return {@code {start, end}}, or {@code {-1, -1}} if the argument is malformed
+     */
+    private static long[] parseRange(String range) {
+        int colon = range.indexOf(':');
+        try {
+            return new long[] {Long.parseLong(range.substring(0, colon)), Long.parseLong(range.substring(colon + 1))};
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            return new long[] {-1, -1};
+        }
+    }
 
-        // write output file
-        byte[] outBytes = result.getBytes(StandardCharsets.UTF_8);
-        Files.write(outputPath, outBytes);
+    /**
+     * Writes the qualifier/action trace of each selected input line, re-running only those lines with tracing on.
+     *
+     * @param model         the model with the component to explain
+     * @param reader        the input
+     * @param writer        the output receiving the traces
+     * @param explainLine   the (1-based) line to explain, or {@code 0} for none
+     * @param explainFilter the text a line must contain to be explained, or {@code null} for none
+     * @throws IOException if reading the input or writing the output fails.
+     */
+    private static void explainLines(Model model, BufferedReader reader, BufferedWriter writer,
+                                     int explainLine, String explainFilter) throws IOException {
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (lineNumber == explainLine || (explainFilter != null && line.contains(explainFilter))) {
+                writer.write(model.explainLine(lineNumber, line));
+                writer.write('\n');
+                writer.flush();
+            }
+            // nothing left to explain past the requested line
+            if (explainFilter == null && lineNumber >= explainLine) break;
+        }
+        if (explainLine > lineNumber) System.err.println("Error: Input only has " + lineNumber + " lines");
     }
 }
\ No newline at end of file
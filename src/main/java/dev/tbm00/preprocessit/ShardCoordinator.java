@@ -0,0 +1,288 @@
+package dev.tbm00.preprocessit;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs one headless job as several worker processes, each processing a byte range (shard) of the input file, and
+ * merges their outputs in input order.
+ *
+ * <p>The input is split into ranges that end on line breaks (see {@link StreamUtil#splitLines(Path, int)}), and each
+ * worker is a separate JVM running this jar with {@code --input-range}, writing its own shard output file. Since
+ * every line's output depends only on the line itself, concatenating the shard outputs in order gives exactly the
+ * single-process output. Progress is recorded in a manifest file next to the output, listing each shard's range,
+ * host, output file and status; if a worker fails, the manifest and the finished shard outputs are kept for
+ * inspection, otherwise they're deleted after the merge.</p>
+ *
+ * <p>Workers run on the local machine, or, given worker hosts, are started over {@code ssh} in round-robin order. A
+ * remote host must see the jar, the config, the input and the output directory at the same paths (e.g. a shared
+ * file system) and have {@code java} on its path. The host name {@value #LOCAL_HOST} runs a worker locally, which
+ * stands in for a remote host when testing.</p>
+ */
+public class ShardCoordinator {
+
+    /** Worker host name that runs the worker as a local process instead of over ssh. */
+    public static final String LOCAL_HOST = "local";
+
+    /** Extension appended to the output path for the shard manifest. */
+    public static final String MANIFEST_EXTENSION = ".shards";
+
+    private static final String MANIFEST_HEADER = "# PreProcessIt shard manifest: index, start byte, end byte, host, output, status";
+
+    private final String inputPath;
+    private final String outputPath;
+    private final List<String> workerArgs;
+    private final List<String> workerHosts;
+    private final List<Shard> shards = new ArrayList<>();
+    private Path manifestPath;
+
+    /** One byte range of the input and the worker processing it. */
+    private static class Shard {
+        final int index;
+        final long start;
+        final long end;
+        final String host;
+        final Path output;
+        String status = "pending";
+
+        Shard(int index, long start, long end, String host, Path output) {
+            this.index = index;
+            this.start = start;
+            this.end = end;
+            this.host = host;
+            this.output = output;
+        }
+    }
+
+    /**
+     * Constructs a new ShardCoordinator.
+     *
+     * @param inputPath   the uncompressed input file
+     * @param outputPath  the output path argument ({@value StreamUtil#STDIO_PATH} for stdout)
+     * @param workerArgs  the arguments every worker gets besides its input, range and output (config, component, ...)
+     * @param workerHosts the hosts to run workers on in turn, or an empty list to run them all locally
+     */
+    public ShardCoordinator(String inputPath, String outputPath, List<String> workerArgs, List<String> workerHosts) {
+        this.inputPath = Paths.get(inputPath).toAbsolutePath().toString();
+        this.outputPath = outputPath;
+        this.workerArgs = workerArgs;
+        this.workerHosts = workerHosts;
+    }
+
+    /**
+     * Splits the input into shards, runs a worker per shard, waits for all of them, and merges their outputs.
+     *
+     * @param shardCount the number of shards wanted (fewer are used if the input has too few lines)
+     * @return {@code true} if every worker succeeded and the outputs were merged, {@code false} otherwise
+     * @throws IOException if the input can't be split, or the manifest or output can't be written
+     */
+    public boolean run(int shardCount) throws IOException {
+        long[] bounds = StreamUtil.splitLines(Paths.get(inputPath), shardCount);
+        Path outputBase;
+        if (StreamUtil.isStdio(outputPath)) {
+            outputBase = Files.createTempFile("preprocessit-temp-shards", "");
+            manifestPath = Paths.get(outputBase + MANIFEST_EXTENSION);
+        } else {
+            outputBase = Paths.get(outputPath).toAbsolutePath();
+            manifestPath = Paths.get(outputBase + MANIFEST_EXTENSION);
+        }
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            String host = workerHosts.isEmpty() ? LOCAL_HOST : workerHosts.get(i % workerHosts.size());
+            shards.add(new Shard(i, bounds[i], bounds[i + 1], host, Paths.get(outputBase + ".shard" + i)));
+        }
+        writeManifest();
+        StaticUtil.log("Sharding " + inputPath + " into " + shards.size() + " shards, manifest: " + manifestPath);
+
+        List<Process> processes = new ArrayList<>();
+        List<Thread> pumps = new ArrayList<>();
+        boolean succeeded = true;
+        try {
+            for (Shard shard : shards) {
+                Process process = new ProcessBuilder(workerCommand(shard))
+                        .redirectError(ProcessBuilder.Redirect.INHERIT)
+                        .start();
+                process.getOutputStream().close();
+                // worker stdout only carries its log; keep it off our (possibly piped) stdout
+                pumps.add(pump(process.getInputStream()));
+                processes.add(process);
+                setStatus(shard, "running");
+                StaticUtil.log("Shard " + shard.index + ": bytes " + shard.start + "-" + shard.end + " on " + shard.host);
+            }
+            for (int i = 0; i < shards.size(); i++) {
+                int exitCode = processes.get(i).waitFor();
+                if (exitCode == 0) {
+                    setStatus(shards.get(i), "done");
+                } else {
+                    setStatus(shards.get(i), "failed(" + exitCode + ")");
+                    System.err.println("Error: Shard " + i + " worker on " + shards.get(i).host + " exited with code " + exitCode);
+                    succeeded = false;
+                }
+            }
+            for (Thread pump : pumps) pump.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            succeeded = false;
+        } finally {
+            for (Process process : processes) {
+                if (process.isAlive()) process.destroy();
+            }
+        }
+        if (!succeeded) {
+            System.err.println("Error: Sharded run failed, see " + manifestPath);
+            if (StreamUtil.isStdio(outputPath)) Files.deleteIfExists(outputBase);
+            return false;
+        }
+
+        merge();
+        for (Shard shard : shards) Files.deleteIfExists(shard.output);
+        Files.deleteIfExists(manifestPath);
+        if (StreamUtil.isStdio(outputPath)) Files.deleteIfExists(outputBase);
+        return true;
+    }
+
+    /**
+     * Concatenates the shard outputs listed in the manifest, in order, into the output.
+     *
+     * @throws IOException if a shard output can't be read or the output can't be written
+     */
+    private void merge() throws IOException {
+        byte[] buffer = new byte[1 << 16];
+        try (OutputStream out = StreamUtil.openOutputStream(outputPath)) {
+            for (Shard shard : readManifest()) {
+                if (!"done".equals(shard.status)) {
+                    throw new IOException("Shard " + shard.index + " is " + shard.status + " in " + manifestPath);
+                }
+                try (InputStream in = Files.newInputStream(shard.output)) {
+                    int n;
+                    while ((n = in.read(buffer)) > 0) out.write(buffer, 0, n);
+                }
+            }
+        }
+        StaticUtil.log("Merged " + shards.size() + " shards into " + (StreamUtil.isStdio(outputPath) ? "stdout" : outputPath));
+    }
+
+    /**
+     * Builds the command that runs a shard's worker: this JVM's java binary, JVM options and class path for a local
+     * worker, or {@code java} on the host's path over {@code ssh} for a remote one.
+     *
+     * @param shard the shard to process
+     * @return the command line
+     */
+    private List<String> workerCommand(Shard shard) {
+        boolean local = LOCAL_HOST.equals(shard.host);
+        List<String> command = new ArrayList<>();
+        command.add(local ? Paths.get(System.getProperty("java.home"), "bin", "java").toString() : "java");
+        for (String jvmArg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            // agent/debugger options can't be shared between processes
+            if (!jvmArg.startsWith("-agentlib") && !jvmArg.startsWith("-javaagent")) command.add(jvmArg);
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(PreProcessIt.class.getName());
+        command.addAll(workerArgs);
+        command.add("--input");
+        command.add(inputPath);
+        command.add("--input-range");
+        command.add(shard.start + ":" + shard.end);
+        command.add("--output");
+        command.add(shard.output.toString());
+        if (local) return command;
+
+        StringBuilder remote = new StringBuilder();
+        for (String arg : command) {
+            if (remote.length() > 0) remote.append(' ');
+            remote.append('\'').append(arg.replace("'", "'\\''")).append('\'');
+        }
+        List<String> ssh = new ArrayList<>();
+        ssh.add("ssh");
+        ssh.add(shard.host);
+        ssh.add(remote.toString());
+        return ssh;
+    }
+
+    /**
+     * Copies a worker's stdout to our stderr on a daemon thread.
+     *
+     * @param in the worker's stdout
+     * @return the started thread
+     */
+    private static Thread pump(InputStream in) {
+        Thread thread = new Thread(() -> {
+            byte[] buffer = new byte[8192];
+            try (InputStream source = in) {
+                int n;
+                while ((n = source.read(buffer)) > 0) System.err.write(buffer, 0, n);
+                System.err.flush();
+            } catch (IOException e) {
+                StaticUtil.log("Error reading worker output: " + e.getMessage());
+            }
+        }, "PreProcessIt-shard-log");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private void setStatus(Shard shard, String status) throws IOException {
+        shard.status = status;
+        writeManifest();
+    }
+
+    /**
+     * Writes the manifest, replacing the previous one atomically so it's never seen half-written.
+     *
+     * @throws IOException if the manifest can't be written
+     */
+    private void writeManifest() throws IOException {
+        Path temp = Paths.get(manifestPath + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(MANIFEST_HEADER);
+            writer.newLine();
+            writer.write("input\t" + inputPath);
+            writer.newLine();
+            for (Shard shard : shards) {
+                writer.write(shard.index + "\t" + shard.start + "\t" + shard.end + "\t" + shard.host + "\t"
+                             + shard.output + "\t" + shard.status);
+                writer.newLine();
+            }
+        }
+        Files.move(temp, manifestPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the shards back from the manifest, in order.
+     *
+     * @return the manifest's shards
+     * @throws IOException if the manifest can't be read or is malformed
+     */
+    private List<Shard> readManifest() throws IOException {
+        List<Shard> listed = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(manifestPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("#") || line.startsWith("input\t")) continue;
+                String[] fields = line.split("\t");
+                if (fields.length != 6) throw new IOException("Malformed shard manifest line: " + line);
+                try {
+                    Shard shard = new Shard(Integer.parseInt(fields[0]), Long.parseLong(fields[1]),
+                                            Long.parseLong(fields[2]), fields[3], Paths.get(fields[4]));
+                    shard.status = fields[5];
+                    listed.add(shard);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Malformed shard manifest line: " + line);
+                }
+            }
+        }
+        return listed;
+    }
+}
@@ -2,15 +2,28 @@ package dev.tbm00.preprocessit;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
 import java.util.regex.Pattern;
 
+import dev.tbm00.preprocessit.model.data.ValueMap;
+import dev.tbm00.preprocessit.model.data.WordDictionary;
+
 public class StaticUtil {
 
     public static final String KEY_CONCURRENT_THREADING = "concurrentThreading";
     public static final String KEY_CONCURRENT_OVERRIDE = "threadPoolSizeOverride";
+    public static final String KEY_EXECUTOR_STRATEGY = "executorStrategy";
+    public static final String KEY_LINE_TRACING = "lineTracing";
+    public static final String KEY_COMPILE_COMPONENTS = "compileComponents";
+    public static final String KEY_OPTIMIZE_COMPONENTS = "optimizeComponents";
 
     public static final String KEY_COMPONENTS = "components";
     public static final String KEY_INPUT_LINE_RULES = "inputLineRules";
@@ -27,13 +40,17 @@ public class StaticUtil {
     public static final Pattern NUMBER_PREFIX = Pattern.compile("^(\\d+(?:\\.\\d+)?)");
     public static final Pattern NUMBER_SUFFIX = Pattern.compile("(\\d+(?:\\.\\d+)?)$");
 
+    /** The program's version, as built (from {@code version.properties}), or {@code "unknown"}. */
+    public static final String VERSION = loadVersion();
+
     private static BufferedWriter logWriter;
     private static Path logFile;
     private static boolean consoleLogging = false;
+    private static PrintStream consoleStream = System.out;
 
     public static Path initLogFile() throws IOException {
         if (logFile == null) {
-            logFile = Files.createTempFile("preprocessit-temp‑log", ".txt");
+            logFile = Files.createTempFile("preprocessit-temp-log", ".txt");
             logWriter = Files.newBufferedWriter(logFile,
                                    StandardOpenOption.APPEND,
                                    StandardOpenOption.CREATE);
@@ -43,7 +60,7 @@ public class StaticUtil {
 
     public static synchronized void log(String msg) {
         if (consoleLogging) {
-            System.out.println(msg);
+            consoleStream.println(msg);
         } else {
             try {
                 if (logWriter == null) initLogFile();
@@ -64,7 +81,61 @@ public class StaticUtil {
         log("");
     }
 
+    /**
+     * Reads the program's version from the {@code version.properties} resource, which the build fills in.
+     *
+     * @return the version, or {@code "unknown"} if the resource is missing or unreadable
+     */
+    private static String loadVersion() {
+        Properties properties = new Properties();
+        try (InputStream in = StaticUtil.class.getResourceAsStream("/version.properties")) {
+            if (in != null) properties.load(in);
+        } catch (IOException e) {
+            // fall through to unknown
+        }
+        return properties.getProperty("version", "unknown");
+    }
+
+    /**
+     * Fingerprints a config file's content together with the selected component's name, the dictionary and table
+     * files loaded with it, and the program's {@link #VERSION}, so results produced under one config, or by another
+     * version whose processing may differ, are never mistaken for another's.
+     *
+     * @param configPath the config file
+     * @param component  the selected component's name
+     * @return the hex SHA-256 hash
+     * @throws IOException if the config file can't be read
+     */
+    public static String configFingerprint(Path configPath, String component) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(VERSION.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(Files.readAllBytes(configPath));
+            digest.update((byte) 0);
+            digest.update(component.getBytes(StandardCharsets.UTF_8));
+            for (String dictionary : WordDictionary.loadedFiles()) {
+                digest.update((byte) 0);
+                digest.update(dictionary.getBytes(StandardCharsets.UTF_8));
+            }
+            for (String table : ValueMap.loadedFiles()) {
+                digest.update((byte) 0);
+                digest.update(table.getBytes(StandardCharsets.UTF_8));
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 unavailable", e);
+        }
+    }
+
     public static void enableConsoleLogging() {
+        enableConsoleLogging(System.out);
+    }
+
+    public static void enableConsoleLogging(PrintStream stream) {
+        consoleStream = stream;
         consoleLogging = true;
     }
 }
\ No newline at end of file
@@ -0,0 +1,764 @@
+package dev.tbm00.preprocessit;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class StreamUtil {
+
+    /** Path argument that stands for standard input or standard output. */
+    public static final String STDIO_PATH = "-";
+
+    /** Output paths ending with this extension are gzip-compressed. */
+    public static final String GZIP_EXTENSION = ".gz";
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int READ_AHEAD_CHUNKS = 8;
+
+    /**
+     * Checks whether the given path argument refers to standard input/output.
+     *
+     * @param path the path argument
+     * @return {@code true} if the argument is {@code null} or {@value #STDIO_PATH}
+     */
+    public static boolean isStdio(String path) {
+        return path == null || STDIO_PATH.equals(path);
+    }
+
+    /**
+     * Opens a UTF-8 reader over the given input path, or over standard input when the path is
+     * {@value #STDIO_PATH}. Closing the returned reader never closes {@code System.in}.
+     *
+     * <p>Gzip input is detected from its magic header (regardless of extension) and decompressed on
+     * a separate thread that reads ahead of the consumer, so inflating overlaps with processing.</p>
+     *
+     * <p>Lines are split on the raw bytes and decoded one at a time; pure-ASCII lines (nearly all real input)
+     * are copied straight into their strings without going through a charset decoder.</p>
+     *
+     * @param path the input path argument
+     * @return a buffered reader
+     * @throws IOException if the file cannot be opened or its gzip header is corrupt
+     */
+    public static BufferedReader openReader(String path) throws IOException {
+        return new Utf8LineReader(openInputStream(path));
+    }
+
+    /**
+     * Opens a UTF-8 reader over bytes {@code start} (inclusive) to {@code end} (exclusive) of an uncompressed
+     * input file, decoded like {@link #openReader(String)}.
+     *
+     * <p>The range should start at the beginning of a line and end just after a line break (or at the end of the
+     * file), as the ranges from {@link #splitLines(Path, int)} do.</p>
+     *
+     * @param path  the input file path
+     * @param start the first byte of the range
+     * @param end   the byte just past the range
+     * @return a buffered reader
+     * @throws IOException if the file cannot be opened
+     */
+    public static BufferedReader openReader(String path, long start, long end) throws IOException {
+        return new Utf8LineReader(new RangeInputStream(FileChannel.open(Paths.get(path), StandardOpenOption.READ), start, end, true), start);
+    }
+
+    /**
+     * Opens a UTF-8 reader over bytes {@code start} (inclusive) to {@code end} (exclusive) of an open file channel,
+     * like {@link #openReader(String, long, long)}. Closing the returned reader leaves the channel open.
+     *
+     * @param channel the channel to read
+     * @param start   the first byte of the range
+     * @param end     the byte just past the range
+     * @return a buffered reader
+     */
+    public static BufferedReader openReader(FileChannel channel, long start, long end) {
+        return new Utf8LineReader(new RangeInputStream(channel, start, end, false), start);
+    }
+
+    /**
+     * Opens a UTF-8 reader over an input file like {@link #openReader(String)}, starting {@code offset} bytes into
+     * its (decompressed) content, which should be the beginning of a line.
+     *
+     * <p>An uncompressed file is opened directly at the offset; gzip input has to be decompressed up to it.</p>
+     *
+     * @param path   the input file path
+     * @param offset the (decompressed) byte to start reading at
+     * @return a buffered reader
+     * @throws IOException if the file cannot be opened, or is shorter than {@code offset}
+     */
+    public static BufferedReader openReader(String path, long offset) throws IOException {
+        if (!isGzipFile(Paths.get(path))) return openReader(path, offset, Long.MAX_VALUE);
+        InputStream in = openInputStream(path);
+        long remaining = offset;
+        byte[] skipped = new byte[BUFFER_SIZE];
+        int n;
+        while (remaining > 0 && (n = in.read(skipped, 0, (int) Math.min(remaining, skipped.length))) > 0) {
+            remaining -= n;
+        }
+        if (remaining > 0) {
+            in.close();
+            throw new IOException("Input is shorter than " + offset + " bytes: " + path);
+        }
+        return new Utf8LineReader(in, offset);
+    }
+
+    /**
+     * Gets the (decompressed) input offset just past the last line returned by a reader's {@code readLine}.
+     *
+     * @param reader a reader opened by one of this class's {@code openReader} methods
+     * @return the byte offset of the next line, or {@code -1} if the reader wasn't opened by this class
+     * @throws IOException if reading fails
+     */
+    public static long inputOffset(BufferedReader reader) throws IOException {
+        return (reader instanceof Utf8LineReader) ? ((Utf8LineReader) reader).offset() : -1;
+    }
+
+    /**
+     * Splits a file into up to {@code parts} byte ranges of roughly equal size, each ending just after a
+     * {@code \n} (or at the end of the file), so that no line is split between two ranges.
+     *
+     * @param path  the file to split
+     * @param parts the number of ranges wanted
+     * @return the range boundaries: range {@code i} spans {@code [bounds[i], bounds[i + 1])}; fewer than
+     *         {@code parts} ranges are returned if the file has too few lines
+     * @throws IOException if the file cannot be read
+     */
+    public static long[] splitLines(Path path, int parts) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] bounds = new long[parts + 1];
+            int count = 0;
+            ByteBuffer chunk = ByteBuffer.allocate(BUFFER_SIZE);
+            for (int i = 1; i < parts; i++) {
+                // the boundary is just past the first \n at or after the target
+                long pos = Math.max(size * i / parts, bounds[count]);
+                long boundary = size;
+                scan:
+                while (pos < size) {
+                    chunk.clear();
+                    int n = channel.read(chunk, pos);
+                    if (n <= 0) break;
+                    for (int j = 0; j < n; j++) {
+                        if (chunk.get(j) == '\n') {
+                            boundary = pos + j + 1;
+                            break scan;
+                        }
+                    }
+                    pos += n;
+                }
+                if (boundary >= size) break;
+                if (boundary > bounds[count]) bounds[++count] = boundary;
+            }
+            bounds[++count] = size;
+            return Arrays.copyOf(bounds, count + 1);
+        }
+    }
+
+    /**
+     * Opens the raw byte stream behind {@link #openReader(String)}, with gzip input already
+     * decompressed on a read-ahead thread.
+     *
+     * @param path the input path argument
+     * @return an input stream of (decompressed) input bytes
+     * @throws IOException if the file cannot be opened or its gzip header is corrupt
+     */
+    public static InputStream openInputStream(String path) throws IOException {
+        InputStream raw = isStdio(path)
+                ? new FilterInputStream(System.in) { @Override public void close() {} }
+                : new FileInputStream(path);
+        BufferedInputStream in = new BufferedInputStream(raw, BUFFER_SIZE);
+        if (isGzip(in)) {
+            return new ReadAheadInputStream(new GZIPInputStream(in, BUFFER_SIZE), "PreProcessIt-gunzip");
+        }
+        return in;
+    }
+
+    /**
+     * Opens a UTF-8 writer over the given output path, or over standard output when the path is
+     * {@value #STDIO_PATH}. Closing the returned writer flushes, but never closes, {@code System.out}.
+     *
+     * <p>Paths ending with {@value #GZIP_EXTENSION} are written gzip-compressed. ASCII characters are copied
+     * straight into the output buffer; only other characters go through UTF-8 encoding.</p>
+     *
+     * @param path the output path argument
+     * @return a buffered writer
+     * @throws IOException if the file cannot be created
+     */
+    public static BufferedWriter openWriter(String path) throws IOException {
+        return new Utf8Writer(openOutputStream(path));
+    }
+
+    /**
+     * Opens a UTF-8 writer like {@link #openWriter(String)} over the given byte stream, which closing the writer
+     * closes.
+     *
+     * @param out the output stream
+     * @return a buffered writer
+     */
+    public static BufferedWriter openWriter(OutputStream out) {
+        return new Utf8Writer(out);
+    }
+
+    /**
+     * Opens the raw byte stream behind {@link #openWriter(String)}, gzip-compressing when the path ends with
+     * {@value #GZIP_EXTENSION}.
+     *
+     * @param path the output path argument
+     * @return an output stream for the (to be compressed) output bytes
+     * @throws IOException if the file cannot be created
+     */
+    public static OutputStream openOutputStream(String path) throws IOException {
+        OutputStream out = isStdio(path)
+                ? new FilterOutputStream(System.out) {
+                    @Override public void write(byte[] b, int off, int len) throws IOException { out.write(b, off, len); }
+                    @Override public void close() throws IOException { flush(); }
+                }
+                : new FileOutputStream(path);
+        if (isGzipPath(path)) {
+            // syncFlush so that each flushed batch is decodable downstream
+            out = new GZIPOutputStream(out, BUFFER_SIZE, true);
+        }
+        return out;
+    }
+
+    /**
+     * Checks whether the given path argument names a gzip file by its extension.
+     *
+     * @param path the path argument
+     * @return {@code true} if the path ends with {@value #GZIP_EXTENSION} (case insensitive)
+     */
+    public static boolean isGzipPath(String path) {
+        return !isStdio(path) && path.toLowerCase().endsWith(GZIP_EXTENSION);
+    }
+
+    /**
+     * Checks whether the given file is gzip-compressed by its magic header (regardless of extension).
+     *
+     * @param path the file to check
+     * @return {@code true} if the file starts with a gzip header
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isGzipFile(Path path) throws IOException {
+        try (BufferedInputStream in = new BufferedInputStream(Files.newInputStream(path), 2)) {
+            return isGzip(in);
+        }
+    }
+
+    /**
+     * Peeks at the first two bytes of the stream for the gzip magic number, without consuming them.
+     *
+     * @param in a stream supporting mark/reset
+     * @return {@code true} if the stream starts with a gzip header
+     * @throws IOException if reading fails
+     */
+    private static boolean isGzip(BufferedInputStream in) throws IOException {
+        in.mark(2);
+        int b1 = in.read();
+        int b2 = in.read();
+        in.reset();
+        return b1 == (GZIPInputStream.GZIP_MAGIC & 0xff) && b2 == (GZIPInputStream.GZIP_MAGIC >>> 8);
+    }
+
+    /**
+     * An input stream that drains its source on a background daemon thread into a small bounded
+     * queue of chunks, letting expensive decoding (e.g. inflating) run ahead of the consumer.
+     */
+    private static class ReadAheadInputStream extends InputStream {
+        private static final byte[] EOF = new byte[0];
+
+        private final InputStream source;
+        private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(READ_AHEAD_CHUNKS);
+        private final Thread producer;
+        private volatile IOException failure;
+        private volatile boolean closed;
+
+        private byte[] chunk;
+        private int pos;
+        private boolean eof;
+
+        ReadAheadInputStream(InputStream source, String threadName) {
+            this.source = source;
+            this.producer = new Thread(this::produce, threadName);
+            this.producer.setDaemon(true);
+            this.producer.start();
+        }
+
+        private void produce() {
+            try {
+                byte[] buf = new byte[BUFFER_SIZE];
+                int n;
+                // hand over whatever each read returns, so a slow source (e.g. a pipe) still streams line by line
+                while (!closed && (n = source.read(buf, 0, buf.length)) != -1) {
+                    if (n == 0) continue;
+                    if (n == buf.length) {
+                        chunks.put(buf);
+                        buf = new byte[BUFFER_SIZE];
+                    } else {
+                        chunks.put(Arrays.copyOf(buf, n));
+                    }
+                }
+            } catch (IOException e) {
+                failure = e;
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                chunks.put(EOF);
+            } catch (InterruptedException ignored) {}
+        }
+
+        private boolean nextChunk() throws IOException {
+            if (eof) return false;
+            try {
+                chunk = chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for input");
+            }
+            pos = 0;
+            if (chunk == EOF) {
+                eof = true;
+                if (failure != null) throw failure;
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if ((chunk == null || pos == chunk.length) && !nextChunk()) return -1;
+            return chunk[pos++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if ((chunk == null || pos == chunk.length) && !nextChunk()) return -1;
+            int n = Math.min(len, chunk.length - pos);
+            System.arraycopy(chunk, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            if (eof) return 0;
+            if (chunk != null && pos < chunk.length) return chunk.length - pos;
+            byte[] next = chunks.peek();
+            return (next == null) ? 0 : next.length;
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            producer.interrupt();
+            source.close();
+        }
+    }
+
+    /**
+     * An input stream over a byte range of a file channel, optionally closing the channel when closed.
+     */
+    private static class RangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long end;
+        private final boolean closeChannel;
+        private long pos;
+
+        RangeInputStream(FileChannel channel, long start, long end, boolean closeChannel) {
+            this.channel = channel;
+            this.pos = start;
+            this.end = end;
+            this.closeChannel = closeChannel;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return (read(b, 0, 1) == 1) ? (b[0] & 0xff) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (pos >= end) return -1;
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - pos)), pos);
+            if (n < 0) return -1;
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.max(0, Math.min(Integer.MAX_VALUE, Math.min(end, channel.size()) - pos));
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closeChannel) channel.close();
+        }
+    }
+
+    /**
+     * A UTF-8 {@code BufferedReader} that reads bytes itself and splits lines before decoding them.
+     *
+     * <p>Each line is decoded on its own: if none of its bytes has the high bit set it becomes a Latin-1 string
+     * (a plain byte copy), otherwise it's decoded as UTF-8. Line breaks ({@code \n}, {@code \r} or {@code \r\n})
+     * and malformed input are handled like an {@code InputStreamReader} wrapped in a {@code BufferedReader}.
+     * The character-reading methods decode whole chunks, never splitting a multi-byte sequence. Mark/reset isn't
+     * supported. Not thread-safe.</p>
+     */
+    private static class Utf8LineReader extends BufferedReader {
+        private final InputStream in;
+        private byte[] buf = new byte[BUFFER_SIZE];
+        /** The input offset of {@code buf[0]}. */
+        private long bufferOffset;
+        private int pos;
+        private int limit;
+        private boolean eof;
+        private boolean skipLF;
+
+        /** Characters decoded for (but not yet returned by) the character-reading methods. */
+        private String pending = "";
+        private int pendingPos;
+
+        Utf8LineReader(InputStream in) {
+            this(in, 0);
+        }
+
+        Utf8LineReader(InputStream in, long offset) {
+            super(new StringReader(""), 1);
+            this.in = in;
+            this.bufferOffset = offset;
+        }
+
+        /**
+         * Gets the input offset of the next unread line, consuming the {@code \n} of a {@code \r\n} line break
+         * whose {@code \r} ended the last line.
+         *
+         * @return the byte offset.
+         * @throws IOException if reading fails.
+         */
+        long offset() throws IOException {
+            if (skipLF) {
+                if (pos == limit) fill();
+                if (pos < limit && buf[pos] == '\n') pos++;
+                skipLF = false;
+            }
+            return bufferOffset + pos;
+        }
+
+        /**
+         * Reads more bytes into the buffer, compacting or growing it first if it's full.
+         *
+         * @return {@code false} at the end of the stream.
+         * @throws IOException if reading fails.
+         */
+        private boolean fill() throws IOException {
+            if (eof) return false;
+            if (pos > 0) {
+                System.arraycopy(buf, pos, buf, 0, limit - pos);
+                bufferOffset += pos;
+                limit -= pos;
+                pos = 0;
+            }
+            if (limit == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+            int n = in.read(buf, limit, buf.length - limit);
+            if (n < 0) {
+                eof = true;
+                return false;
+            }
+            limit += n;
+            return true;
+        }
+
+        private String decode(int off, int len, int bits) {
+            return ((bits & 0x80) == 0) ? new String(buf, off, len, StandardCharsets.ISO_8859_1)
+                                        : new String(buf, off, len, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String readLine() throws IOException {
+            if (pendingPos < pending.length()) return readPendingLine();
+            if (skipLF) {
+                if (pos == limit) fill();
+                if (pos < limit && buf[pos] == '\n') pos++;
+                skipLF = false;
+            }
+
+            int scan = pos;
+            int bits = 0;
+            for (;;) {
+                while (scan < limit) {
+                    byte b = buf[scan];
+                    if (b == '\n' || b == '\r') {
+                        String line = decode(pos, scan - pos, bits);
+                        pos = scan + 1;
+                        skipLF = (b == '\r');
+                        return line;
+                    }
+                    bits |= b;
+                    scan++;
+                }
+                int scanned = scan - pos;
+                if (!fill()) {
+                    if (pos == limit) return null;
+                    String line = decode(pos, limit - pos, bits);
+                    pos = limit;
+                    return line;
+                }
+                scan = pos + scanned;
+            }
+        }
+
+        // Finish a line that began in characters already decoded by read(char[], int, int)
+        private String readPendingLine() throws IOException {
+            if (skipLF) {
+                skipLF = false;
+                if (pending.charAt(pendingPos) == '\n' && ++pendingPos == pending.length()) return readLine();
+            }
+            for (int i = pendingPos; i < pending.length(); i++) {
+                char c = pending.charAt(i);
+                if (c == '\n' || c == '\r') {
+                    String line = pending.substring(pendingPos, i);
+                    pendingPos = i + 1;
+                    skipLF = (c == '\r');
+                    return line;
+                }
+            }
+            String head = pending.substring(pendingPos);
+            pendingPos = pending.length();
+            String rest = readLine();
+            return (rest == null) ? head : head + rest;
+        }
+
+        /**
+         * Decodes the next chunk of buffered bytes into {@link #pending}, stopping short of an incomplete
+         * multi-byte sequence at its end.
+         *
+         * @return {@code false} at the end of the stream.
+         * @throws IOException if reading fails.
+         */
+        private boolean nextChunk() throws IOException {
+            if (skipLF) {
+                if (pos == limit) fill();
+                if (pos < limit && buf[pos] == '\n') pos++;
+                skipLF = false;
+            }
+            int end;
+            for (;;) {
+                if (pos == limit && !fill()) return false;
+                end = limit;
+                int lead = end - 1;
+                while (lead > pos && end - lead < 4 && (buf[lead] & 0xC0) == 0x80) lead--;
+                int b = buf[lead] & 0xff;
+                int length = (b >= 0xF0) ? 4 : (b >= 0xE0) ? 3 : (b >= 0xC0) ? 2 : 1;
+                if (length > end - lead) end = lead;
+                if (end > pos) break;
+                if (!fill()) {
+                    end = limit;
+                    break;
+                }
+            }
+            int bits = 0;
+            for (int i = pos; i < end; i++) bits |= buf[i];
+            pending = decode(pos, end - pos, bits);
+            pendingPos = 0;
+            pos = end;
+            return true;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (pendingPos == pending.length() && !nextChunk()) return -1;
+            int n = Math.min(len, pending.length() - pendingPos);
+            pending.getChars(pendingPos, pendingPos + n, cbuf, off);
+            pendingPos += n;
+            return n;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (pendingPos == pending.length() && !nextChunk()) return -1;
+            return pending.charAt(pendingPos++);
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (n < 0) throw new IllegalArgumentException("skip value is negative");
+            char[] skipped = new char[(int) Math.min(n, BUFFER_SIZE)];
+            long remaining = n;
+            int count;
+            while (remaining > 0 && (count = read(skipped, 0, (int) Math.min(remaining, skipped.length))) != -1) {
+                remaining -= count;
+            }
+            return n - remaining;
+        }
+
+        @Override
+        public boolean ready() throws IOException {
+            if (pendingPos < pending.length()) return true;
+            if (skipLF && pos < limit && buf[pos] == '\n') {
+                pos++;
+                skipLF = false;
+            }
+            return pos < limit || in.available() > 0;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void mark(int readAheadLimit) throws IOException {
+            throw new IOException("mark/reset not supported");
+        }
+
+        @Override
+        public void reset() throws IOException {
+            throw new IOException("mark/reset not supported");
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * A UTF-8 {@code BufferedWriter} that encodes characters into its own byte buffer.
+     *
+     * <p>ASCII characters are stored as single bytes without any encoder; other characters are encoded by hand.
+     * Like an {@code OutputStreamWriter}, unpaired surrogates are written as {@code '?'}, and a high surrogate at
+     * the end of one write is paired with a low surrogate starting the next. Not thread-safe.</p>
+     */
+    private static class Utf8Writer extends BufferedWriter {
+        private final OutputStream out;
+        private final byte[] buf = new byte[BUFFER_SIZE];
+        private int count;
+        private char pendingHighSurrogate;
+        private boolean closed;
+
+        Utf8Writer(OutputStream out) {
+            super(new StringWriter(0), 1);
+            this.out = out;
+        }
+
+        private void flushBuffer() throws IOException {
+            if (count > 0) {
+                out.write(buf, 0, count);
+                count = 0;
+            }
+        }
+
+        private void encode(char c) throws IOException {
+            if (buf.length - count < 4) flushBuffer();
+            if (pendingHighSurrogate != 0) {
+                char high = pendingHighSurrogate;
+                pendingHighSurrogate = 0;
+                if (Character.isLowSurrogate(c)) {
+                    int codePoint = Character.toCodePoint(high, c);
+                    buf[count++] = (byte) (0xF0 | (codePoint >> 18));
+                    buf[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    buf[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    buf[count++] = (byte) (0x80 | (codePoint & 0x3F));
+                    return;
+                }
+                buf[count++] = '?';
+            }
+            if (c < 0x80) {
+                buf[count++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[count++] = (byte) (0xC0 | (c >> 6));
+                buf[count++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c)) {
+                pendingHighSurrogate = c;
+            } else if (Character.isLowSurrogate(c)) {
+                buf[count++] = '?';
+            } else {
+                buf[count++] = (byte) (0xE0 | (c >> 12));
+                buf[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[count++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            encode((char) c);
+        }
+
+        @Override
+        public void write(String s, int off, int len) throws IOException {
+            for (int i = off, end = off + len; i < end; i++) {
+                char c = s.charAt(i);
+                if (c < 0x80 && pendingHighSurrogate == 0) {
+                    if (count == buf.length) flushBuffer();
+                    buf[count++] = (byte) c;
+                } else {
+                    encode(c);
+                }
+            }
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            for (int i = off, end = off + len; i < end; i++) {
+                char c = cbuf[i];
+                if (c < 0x80 && pendingHighSurrogate == 0) {
+                    if (count == buf.length) flushBuffer();
+                    buf[count++] = (byte) c;
+                } else {
+                    encode(c);
+                }
+            }
+        }
+
+        @Override
+        public void newLine() throws IOException {
+            write(System.lineSeparator());
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushBuffer();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try {
+                if (pendingHighSurrogate != 0) {
+                    pendingHighSurrogate = 0;
+                    encode('?');
+                }
+                flushBuffer();
+            } finally {
+                out.close();
+            }
+        }
+    }
+}
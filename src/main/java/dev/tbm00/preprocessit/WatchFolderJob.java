@@ -0,0 +1,243 @@
+package dev.tbm00.preprocessit;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import dev.tbm00.preprocessit.model.Model;
+
+/**
+ * Watches an input directory and processes every file that lands in it, writing each file's output to an output
+ * directory.
+ *
+ * <p>The config is loaded once and shared by a fixed pool of file workers, which process different files in
+ * parallel (each file's lines sequentially on its worker, see {@link Model#processStreamSequential}). Files already in
+ * the directory are processed on start, then new ones as the directory's {@code WatchService} reports them. A file
+ * is only picked up once its size and modification time have stayed the same for {@value #SETTLE_MILLIS} ms, so files
+ * still being copied in aren't read half-written; hidden files (starting with {@code .}) and files ending with
+ * {@code .tmp} or {@code .part} are ignored.</p>
+ *
+ * <p>Each output is written under a temporary name and moved into place once complete, with the input's name (minus
+ * a {@value StreamUtil#GZIP_EXTENSION} extension; gzip input is decompressed). A processed input is then moved to the
+ * processed directory, if one was given, or else renamed with the {@value #PROCESSED_EXTENSION} extension; an input
+ * that fails is renamed with the {@value #FAILED_EXTENSION} extension. Marked files are never picked up again.</p>
+ */
+public class WatchFolderJob {
+
+    /** Extension marking an input file that was processed in place. */
+    public static final String PROCESSED_EXTENSION = ".processed";
+
+    /** Extension marking an input file that failed to process. */
+    public static final String FAILED_EXTENSION = ".failed";
+
+    private static final long SETTLE_MILLIS = 1000;
+    private static final long POLL_MILLIS = 500;
+
+    private final Model model;
+    private final Path watchDir;
+    private final Path outputDir;
+    private final Path processedDir;
+    private final ExecutorService workers;
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile boolean stopped;
+
+    /** Files seen but not yet settled, with their last seen size and modification time and when those last changed. */
+    private final Map<Path, long[]> settling = new HashMap<>();
+    /** Files handed to the workers and not yet done. */
+    private final Set<Path> inFlight = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructs a new WatchFolderJob.
+     *
+     * @param model        the model, with its config loaded and component selected
+     * @param watchDir     the directory to watch for input files
+     * @param outputDir    the directory to write outputs to
+     * @param processedDir the directory to move processed inputs to, or {@code null} to mark them in place
+     * @param fileWorkers  the number of files to process at once
+     */
+    public WatchFolderJob(Model model, String watchDir, String outputDir, String processedDir, int fileWorkers) {
+        this.model = model;
+        this.watchDir = Paths.get(watchDir).toAbsolutePath();
+        this.outputDir = Paths.get(outputDir).toAbsolutePath();
+        this.processedDir = (processedDir != null) ? Paths.get(processedDir).toAbsolutePath() : null;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(fileWorkers,
+                task -> new Thread(task, "PreProcessIt-file-" + threadCount.incrementAndGet()));
+    }
+
+    /**
+     * Watches the directory until {@link #stop()} is called, then waits for the files in progress to finish.
+     *
+     * @throws IOException if the directories can't be created or watched
+     */
+    public void run() throws IOException {
+        Files.createDirectories(outputDir);
+        if (processedDir != null) Files.createDirectories(processedDir);
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            watchDir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            StaticUtil.log("Watching " + watchDir + " for input files, writing outputs to " + outputDir);
+            // pick up files that landed while we weren't watching
+            try (DirectoryStream<Path> existing = Files.newDirectoryStream(watchDir)) {
+                for (Path file : existing) see(file);
+            }
+            while (!stopped) {
+                WatchKey key = watcher.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            // events were lost, rescan
+                            try (DirectoryStream<Path> all = Files.newDirectoryStream(watchDir)) {
+                                for (Path file : all) see(file);
+                            }
+                        } else {
+                            see(watchDir.resolve((Path) event.context()));
+                        }
+                    }
+                    key.reset();
+                }
+                submitSettled();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            workers.shutdown();
+            try {
+                workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finished.countDown();
+        }
+    }
+
+    /**
+     * Asks the daemon to stop watching and waits a few seconds for the files in progress to finish. A file that
+     * doesn't finish is left unmarked, so it's processed again on the next start.
+     *
+     * @return {@code true} if the daemon and its workers stopped in time, {@code false} if some are still running
+     */
+    public boolean stop() {
+        stopped = true;
+        try {
+            return finished.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Starts tracking a file from the directory, unless it's ignored, marked or already being processed.
+     *
+     * @param file the file
+     */
+    private void see(Path file) {
+        String name = file.getFileName().toString();
+        if (name.startsWith(".") || name.endsWith(".tmp") || name.endsWith(".part")
+                || name.endsWith(PROCESSED_EXTENSION) || name.endsWith(FAILED_EXTENSION)) return;
+        if (inFlight.contains(file) || !Files.isRegularFile(file)) return;
+        settling.put(file, new long[] {-1, -1, System.currentTimeMillis()});
+    }
+
+    /**
+     * Hands every file whose size and modification time haven't changed for {@value #SETTLE_MILLIS} ms to the workers.
+     */
+    private void submitSettled() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Path, long[]>> it = settling.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Path, long[]> entry = it.next();
+            Path file = entry.getKey();
+            long[] seen = entry.getValue();
+            long size, modified;
+            try {
+                size = Files.size(file);
+                modified = Files.getLastModifiedTime(file).toMillis();
+            } catch (IOException e) {
+                // gone (moved away or deleted) before it settled
+                it.remove();
+                continue;
+            }
+            if (size != seen[0] || modified != seen[1]) {
+                seen[0] = size;
+                seen[1] = modified;
+                seen[2] = now;
+            } else if (now - seen[2] >= SETTLE_MILLIS) {
+                it.remove();
+                inFlight.add(file);
+                workers.execute(() -> {
+                    try {
+                        process(file);
+                    } finally {
+                        inFlight.remove(file);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Processes one input file into the output directory, then moves or marks it.
+     *
+     * @param file the input file
+     */
+    private void process(Path file) {
+        String name = file.getFileName().toString();
+        String outputName = StreamUtil.isGzipPath(name) ? name.substring(0, name.length() - StreamUtil.GZIP_EXTENSION.length()) : name;
+        Path output = outputDir.resolve(outputName);
+        Path temp = outputDir.resolve("." + outputName + ".tmp");
+        long start = System.currentTimeMillis();
+        try {
+            try (BufferedReader reader = StreamUtil.openReader(file.toString());
+                 BufferedWriter writer = StreamUtil.openWriter(temp.toString())) {
+                model.processStreamSequential(reader, writer);
+            }
+            Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (processedDir != null) {
+                Files.move(file, processedDir.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.move(file, file.resolveSibling(name + PROCESSED_EXTENSION), StandardCopyOption.REPLACE_EXISTING);
+            }
+            StaticUtil.log("Processed " + file + " into " + output + " in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (IOException | RuntimeException e) {
+            if (stopped) {
+                // likely cut short by the shutdown, so leave it unmarked to be processed again on the next start
+                StaticUtil.log("Stopped while processing " + file + ", leaving it unmarked: " + e.getMessage());
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException deleteError) {
+                    StaticUtil.log("Error deleting " + temp + ": " + deleteError.getMessage());
+                }
+                return;
+            }
+            StaticUtil.log("Error processing " + file + ": " + e.getMessage());
+            System.err.println("Error: Failed to process " + file + ": " + e.getMessage());
+            try {
+                Files.deleteIfExists(temp);
+                Files.move(file, file.resolveSibling(name + FAILED_EXTENSION), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException moveError) {
+                StaticUtil.log("Error marking " + file + " as failed: " + moveError.getMessage());
+            }
+        }
+    }
+}
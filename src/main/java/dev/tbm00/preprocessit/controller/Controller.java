@@ -3,6 +3,12 @@ package dev.tbm00.preprocessit.controller;
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.filechooser.FileFilter;
+import javax.swing.event.DocumentEvent;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.Segment;
 
 import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
@@ -13,14 +19,21 @@ import java.awt.datatransfer.*;
 import java.awt.Desktop;
 import java.io.*;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 import dev.tbm00.preprocessit.StaticUtil;
+import dev.tbm00.preprocessit.StreamUtil;
 import dev.tbm00.preprocessit.model.Model;
 import dev.tbm00.preprocessit.model.data.Component;
+import dev.tbm00.preprocessit.model.data.MappedTextFile;
 import dev.tbm00.preprocessit.view.View;
+import dev.tbm00.preprocessit.view.VirtualTextView;
 
 /**
  * Controller handles interaction:
@@ -31,6 +44,21 @@ public class Controller {
     private Model model;
     private View view;
     private static final String README_URL = "https://github.com/tbm00/PreProcessit";
+    private static final int SAVE_CHUNK_CHARS = 1 << 16;
+    // Input files at least this big are shown file-backed (read-only) instead of loaded into the text area
+    private static final long LINES_VIEW_THRESHOLD = 16L << 20;
+    // File-backed output at most this big can be copied to the clipboard
+    private static final long COPY_LIMIT_BYTES = 64L << 20;
+    private BackgroundTask activeTask;
+    private MappedTextFile inputFile;           // file-backed input, or null when the input text area is used
+    private Path inputTempFile;                 // decompressed copy behind inputFile, deleted once closed
+    private MappedTextFile outputFile;          // file-backed output (a temp file), or null when the output text area is used
+    private boolean inputStale;                 // input text area edited since the model's input was last synced
+    // Edits touching at most this many input lines are reprocessed in place (in the background)
+    private static final int INCREMENTAL_LINE_LIMIT = 10000;
+    private String[] lineOutputs;               // output of each input text area line as of the last run, or null
+    private int cleanPrefix;                    // leading input lines unchanged since the last run
+    private int cleanSuffix;                    // trailing input lines unchanged since the last run
 
     public Controller(Model model, View view) {
         this.model = model;
@@ -83,6 +111,14 @@ public class Controller {
             }
         });
 
+        // Listener for Cancel button
+        view.getCancelButton().addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                handleCancel();
+            }
+        });
+
         // Listener for Copy Output button
         view.getCopyOutputButton().addActionListener(new ActionListener() {
             @Override
@@ -115,27 +151,54 @@ public class Controller {
             }
         });
 
+        // MouseListener for explaining a double-clicked output line
+        view.getOutputTextArea().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) handleExplainLine();
+            }
+        });
+
         // Listener for changes in the input text area in real time
         view.getInputTextArea().getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
             @Override
             public void insertUpdate(javax.swing.event.DocumentEvent e) {
                 updateModelInput();
+                markDirtyLines(e);
             }
             @Override
             public void removeUpdate(javax.swing.event.DocumentEvent e) {
                 updateModelInput();
+                markDirtyLines(e);
             }
             @Override
             public void changedUpdate(javax.swing.event.DocumentEvent e) {
                 updateModelInput();
             }
 
+            // Only mark the input as changed: copying the whole text on every keystroke doesn't scale,
+            // so the model is synced once, when processing starts
             private void updateModelInput() {
-                model.setInputText(view.getInputTextArea().getText());
+                inputStale = true;
             }
         });
     }
 
+    // Shrink the clean prefix/suffix to exclude the lines touched by an input edit
+    private void markDirtyLines(DocumentEvent e) {
+        Element root = e.getDocument().getDefaultRootElement();
+        int first = root.getElementIndex(e.getOffset());
+        int last = (e.getType() == DocumentEvent.EventType.INSERT) ? root.getElementIndex(e.getOffset() + e.getLength()) : first;
+        cleanPrefix = Math.min(cleanPrefix, first);
+        cleanSuffix = Math.min(cleanSuffix, root.getElementCount() - 1 - last);
+    }
+
+    // Start tracking input edits afresh (the current input is what's about to be processed)
+    private void resetDirtyLines() {
+        cleanPrefix = Integer.MAX_VALUE;
+        cleanSuffix = Integer.MAX_VALUE;
+    }
+
     // Load components from file YML
     private void handleLoadComponents() {
         JFileChooser fc = new JFileChooser(model.getConfigHandler().getAppDirectory().toFile());
@@ -154,6 +217,7 @@ public class Controller {
             } catch (Exception ex) {ex.printStackTrace();}
 
             // Read/load YAML file/config
+            lineOutputs = null;
             model.getConfigHandler().loadConfig(configFile);
             updateDropdown();
         }
@@ -173,6 +237,7 @@ public class Controller {
     private void handleComponentSelection() {
         String componentString = (String) view.getComponentSelector().getSelectedItem();
         model.setSelectedComponent(componentString);
+        lineOutputs = null;
     }
 
     // Load input from CSV or TXT
@@ -184,14 +249,8 @@ public class Controller {
         if(choice == JFileChooser.APPROVE_OPTION) {
             File dataFile = fc.getSelectedFile();
 
-            try {
-                List<String> lines = Files.readAllLines(dataFile.toPath());
-                String content = String.join("\n", lines);
-                view.getInputTextArea().setText(content);
-                model.setInputText(content);
-            } catch (Exception e) {
-                JOptionPane.showMessageDialog(view, "Error reading file: " + e.getMessage());
-            }
+            // Read (or map, if large) the file in the background
+            startTask(new LoadTask(dataFile.toPath()));
         }
     }
 
@@ -202,16 +261,147 @@ public class Controller {
             TerminalLauncher.openLogTailer(logFile);
         } catch (Exception ex) {ex.printStackTrace();}
 
-        // Use selectedComponent in the model to process the data
-        model.setOutputText(model.processData());
+        // Only a few lines edited since the last run: patch their output in place
+        if (inputFile == null && lineOutputs != null && reprocessDirtyLines()) return;
+
+        // Process the data in the background, appending output as each batch completes
+        view.getOutputTextArea().setText("");
+        model.setOutputText("");
+        closeOutputFile();
+        view.showOutputEditor();
+        lineOutputs = null;
+        if (inputFile != null) {
+            startTask(new ProcessTask(inputFile));
+        } else {
+            syncModelInput();
+            resetDirtyLines();
+            startTask(new ProcessTask(view.getInputTextArea().getDocument()));
+        }
+    }
 
-        // Update view with new data
-        view.getOutputTextArea().setText(model.getOutputText());
+    /**
+     * Starts reprocessing only the input lines edited since the last run, patching their output into the output
+     * area once done (see {@link ReprocessTask}).
+     *
+     * @return {@code false} if too many lines changed and a full run is needed instead.
+     */
+    private boolean reprocessDirtyLines() {
+        Document input = view.getInputTextArea().getDocument();
+        int newCount = input.getDefaultRootElement().getElementCount();
+        int oldCount = lineOutputs.length;
+        int prefix = Math.min(cleanPrefix, Math.min(oldCount, newCount));
+        int suffix = Math.min(cleanSuffix, Math.min(oldCount, newCount) - prefix);
+        if (newCount - suffix - prefix > INCREMENTAL_LINE_LIMIT) return false;
+
+        // Edits made while it runs are tracked against the lines it captures now
+        ReprocessTask task = new ReprocessTask(documentLines(input, prefix, newCount - suffix), prefix, suffix, lineOutputs);
+        lineOutputs = null;
+        resetDirtyLines();
+        startTask(task);
+        return true;
+    }
+
+    // Show the qualifier/action trace of the input line behind a double-clicked output line
+    private void handleExplainLine() {
+        boolean inputEdited = cleanPrefix != Integer.MAX_VALUE || cleanSuffix != Integer.MAX_VALUE;
+        if (lineOutputs == null || inputEdited || activeTask != null) {
+            JOptionPane.showMessageDialog(view, "Process the (unchanged) input first to explain its output lines.");
+            return;
+        }
+
+        // Find the input line that produced the clicked output line (the click already moved the caret onto it)
+        JTextArea outputArea = view.getOutputTextArea();
+        int outputLine;
+        try {
+            outputLine = outputArea.getLineOfOffset(outputArea.getCaretPosition());
+        } catch (BadLocationException ex) {
+            return;
+        }
+        int inputLine = -1;
+        for (int i = 0, seen = 0; i < lineOutputs.length; i++) {
+            if (lineOutputs[i] != null && seen++ == outputLine) {
+                inputLine = i;
+                break;
+            }
+        }
+        if (inputLine < 0) return;
+
+        // Re-run just that line with tracing on
+        String line = documentLines(view.getInputTextArea().getDocument(), inputLine, inputLine + 1)[0];
+        JTextArea trace = new JTextArea(model.explainLine(inputLine + 1, line), 30, 100);
+        trace.setEditable(false);
+        trace.setCaretPosition(0);
+        JOptionPane.showMessageDialog(view, new JScrollPane(trace), "Explain line " + (inputLine + 1), JOptionPane.PLAIN_MESSAGE);
+    }
+
+    // Get the text of the document's lines [from, to), without line breaks
+    private static String[] documentLines(Document document, int from, int to) {
+        Element root = document.getDefaultRootElement();
+        String[] lines = new String[to - from];
+        try {
+            for (int i = from; i < to; i++) {
+                Element line = root.getElement(i);
+                int end = Math.min(line.getEndOffset(), document.getLength());
+                String text = document.getText(line.getStartOffset(), end - line.getStartOffset());
+                if (text.endsWith("\n")) text = text.substring(0, text.length() - 1);
+                if (text.endsWith("\r")) text = text.substring(0, text.length() - 1);
+                lines[i - from] = text;
+            }
+        } catch (BadLocationException e) {
+            throw new IllegalStateException(e);
+        }
+        return lines;
+    }
+
+    // Whether the document's lines end with an empty line, i.e. the text ends with a line break
+    private static boolean endsWithLineBreak(String[] documentLines) {
+        return documentLines.length > 0 && documentLines[documentLines.length - 1].isEmpty();
+    }
+
+    private static int countOutputs(String[] outputs, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (outputs[i] != null) count++;
+        }
+        return count;
+    }
+
+    private static int lineStartOffset(Document document, Element root, int line) {
+        return (line < root.getElementCount()) ? root.getElement(line).getStartOffset() : document.getLength();
+    }
+
+    // Copy the input text area's content into the model, if it was edited since the last sync
+    private void syncModelInput() {
+        if (inputStale) {
+            model.setInputText(view.getInputTextArea().getText());
+            inputStale = false;
+        }
+    }
+
+    // Stop the running process/save after its current batch/chunk
+    private void handleCancel() {
+        if (activeTask != null) {
+            activeTask.cancelRequested = true;
+            view.getCancelButton().setEnabled(false);
+        }
     }
 
     // Copy output text to the system clipboard
     private void handleCopyOutput() {
         String output = view.getOutputTextArea().getText();
+        if (outputFile != null) {
+            if (outputFile.getLength() > COPY_LIMIT_BYTES) {
+                JOptionPane.showMessageDialog(view, "Output is too large to copy (" + (outputFile.getLength() >> 20)
+                        + " MB), use \"Save Output\" instead.");
+                return;
+            }
+            try {
+                output = new String(Files.readAllBytes(outputFile.getPath()), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                JOptionPane.showMessageDialog(view, "Error reading output: " + e.getMessage());
+                return;
+            }
+        }
         StringSelection stringSelection = new StringSelection(output);
         Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
         clipboard.setContents(stringSelection, null);
@@ -219,8 +409,6 @@ public class Controller {
 
     // Save output to CSV or TXT
     private void handleSaveOutput() {
-        String output = view.getOutputTextArea().getText();
-        
         JFileChooser fc = new JFileChooser(model.getConfigHandler().getAppDirectory().toFile());
         // CSV and TXT filters
         FileNameExtensionFilter csvFilter = new FileNameExtensionFilter("CSV files (*.csv)", "csv");
@@ -249,15 +437,8 @@ public class Controller {
         }
         // if “All Files” is selected, we leave the exact filename the user typed
         
-        File outFile = new File(path);
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(outFile))) {
-            writer.write(output);
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(view,
-                "Failed to save file:\n" + e.getMessage(),
-                "Save Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
+        // Write the output in the background, chunk by chunk
+        startTask((outputFile != null) ? new SaveTask(new File(path), outputFile.getPath()) : new SaveTask(new File(path)));
     }
 
     // Clear input & output data
@@ -265,6 +446,58 @@ public class Controller {
         model.clearData();
         view.getInputTextArea().setText("");
         view.getOutputTextArea().setText("");
+        inputStale = false;
+        lineOutputs = null;
+        closeInputFile();
+        closeOutputFile();
+        view.showInputEditor();
+        view.showOutputEditor();
+    }
+
+    private void closeInputFile() {
+        if (inputFile != null) closeQuietly(inputFile);
+        inputFile = null;
+        if (inputTempFile != null) deleteQuietly(inputTempFile);
+        inputTempFile = null;
+    }
+
+    private void closeOutputFile() {
+        if (outputFile != null) {
+            closeQuietly(outputFile);
+            deleteQuietly(outputFile.getPath());
+        }
+        outputFile = null;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            StaticUtil.log("Error closing " + closeable + ": " + e.getMessage());
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            StaticUtil.log("Could not delete temp file " + path + ": " + e.getMessage());
+        }
+    }
+
+    // Adapt a mapped file to the view's line source
+    private static VirtualTextView.LineSource linesOf(final MappedTextFile file) {
+        return new VirtualTextView.LineSource() {
+            @Override
+            public int getLineCount() {
+                return file.getLineCount();
+            }
+
+            @Override
+            public String getLine(int index) {
+                return file.getLine(index);
+            }
+        };
     }
 
     private void handlePasteData() {
@@ -275,10 +508,14 @@ public class Controller {
             if (contents != null && contents.isDataFlavorSupported(DataFlavor.stringFlavor)) {
                 String clipboardText = (String) contents.getTransferData(DataFlavor.stringFlavor);
                 // Overwrite existing contents
+                lineOutputs = null;
+                closeInputFile();
+                view.showInputEditor();
                 view.getInputTextArea().setText(clipboardText);
     
                 // Also update the Model
-                model.setInputText(view.getInputTextArea().getText());
+                model.setInputText(clipboardText);
+                inputStale = false;
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(view, "Error pasting from clipboard: " + e.getMessage());
@@ -296,4 +533,427 @@ public class Controller {
             JOptionPane.showMessageDialog(view, "Failed to open README link: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // Start a background task, locking the controls that would interfere with it
+    private void startTask(BackgroundTask task) {
+        activeTask = task;
+        setBusy(true);
+        view.getProgressBar().setValue(0);
+        view.getProgressBar().setString(task.label + "...");
+        task.execute();
+    }
+
+
+    private void setBusy(boolean busy) {
+        view.getProcessDataButton().setEnabled(!busy);
+        view.getSaveOutputButton().setEnabled(!busy);
+        view.getClearButton().setEnabled(!busy);
+        view.getInputComponentsButton().setEnabled(!busy);
+        view.getInputDataButton().setEnabled(!busy);
+        view.getPasteDataButton().setEnabled(!busy);
+        view.getComponentSelector().setEnabled(!busy);
+        view.getCancelButton().setEnabled(busy);
+    }
+
+    /**
+     * Base for the process/save workers: tracks progress and rate, and restores the controls once finished.
+     *
+     * <p>Cancelling sets a flag that the worker checks between batches/chunks, rather than interrupting it, so that
+     * {@link #done()} only runs once the worker has actually stopped. Progress and output updates are posted with
+     * {@link SwingUtilities#invokeLater(Runnable)}, which keeps them in order and ahead of {@code done()}.</p>
+     */
+    private abstract class BackgroundTask extends SwingWorker<Void, Void> {
+        final String label;
+        final String unit;
+        final long total;
+        final long startNanos = System.nanoTime();
+        volatile boolean cancelRequested;
+
+        BackgroundTask(String label, String unit, long total) {
+            this.label = label;
+            this.unit = unit;
+            this.total = total;
+        }
+
+        // Post a progress update to the progress bar (callable from the worker thread)
+        void postProgress(final long completed) {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    double seconds = Math.max(1e-3, (System.nanoTime() - startNanos) / 1e9);
+                    JProgressBar progressBar = view.getProgressBar();
+                    progressBar.setValue(total > 0 ? (int) Math.min(100, completed * 100 / total) : 100);
+                    progressBar.setString(String.format("%s: %,d / %,d %s (%,d %s/sec)",
+                            label, completed, total, unit, (long) (completed / seconds), unit));
+                }
+            });
+        }
+
+        // Called on the EDT after a successful run, before the controls are restored
+        abstract void finished();
+
+        // Called on the EDT after a cancelled run, before the controls are restored
+        abstract void cancelled();
+
+        @Override
+        protected void done() {
+            try {
+                get();
+                if (cancelRequested) {
+                    cancelled();
+                    view.getProgressBar().setString(label + " cancelled");
+                } else {
+                    finished();
+                    view.getProgressBar().setValue(100);
+                    view.getProgressBar().setString(String.format("%s done: %,d %s in %.2fs",
+                            label, total, unit, (System.nanoTime() - startNanos) / 1e9));
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+                StaticUtil.log("Error during " + label.toLowerCase() + ": " + cause);
+                view.getProgressBar().setString(label + " failed");
+                JOptionPane.showMessageDialog(view,
+                    label + " failed:\n" + cause.getMessage(),
+                    label + " Error",
+                    JOptionPane.ERROR_MESSAGE);
+            } finally {
+                activeTask = null;
+                setBusy(false);
+            }
+        }
+    }
+
+    // Processes the input with the selected component, streaming output into the output text area
+    // (or, for file-backed input, into a temp file shown file-backed as it grows)
+    private class ProcessTask extends BackgroundTask {
+        private final String[] lines;
+        private final String[] outputs;
+        private final Path inputPath;
+
+        // Captures the document's lines (on the EDT); a trailing empty line, i.e. a final line break, isn't processed
+        ProcessTask(Document input) {
+            this(documentLines(input, 0, input.getDefaultRootElement().getElementCount()));
+        }
+
+        private ProcessTask(String[] documentLines) {
+            super("Processing", "lines", documentLines.length - (endsWithLineBreak(documentLines) ? 1 : 0));
+            this.lines = Arrays.copyOf(documentLines, (int) total);
+            this.outputs = new String[documentLines.length];
+            this.inputPath = null;
+        }
+
+        ProcessTask(MappedTextFile inputFile) {
+            super("Processing", "lines", inputFile.getLineCount());
+            this.lines = null;
+            this.outputs = null;
+            this.inputPath = inputFile.getPath();
+        }
+
+        @Override
+        protected Void doInBackground() throws IOException {
+            if (inputPath != null) {
+                processFile();
+                return null;
+            }
+
+            model.processLines(lines, outputs, 1, new Model.BatchListener() {
+                private int appended;
+
+                @Override
+                public boolean batchWritten(long linesProcessed) {
+                    StringBuilder pending = new StringBuilder();
+                    for (; appended < linesProcessed; appended++) {
+                        if (outputs[appended] != null) pending.append(outputs[appended]).append('\n');
+                    }
+                    final String chunk = pending.toString();
+                    if (!chunk.isEmpty()) {
+                        SwingUtilities.invokeLater(new Runnable() {
+                            @Override
+                            public void run() {
+                                view.getOutputTextArea().append(chunk);
+                            }
+                        });
+                    }
+                    postProgress(linesProcessed);
+                    return !cancelRequested;
+                }
+            });
+            return null;
+        }
+
+        private void processFile() throws IOException {
+            Path outPath = Files.createTempFile("preprocessit-output", ".txt");
+            outPath.toFile().deleteOnExit();
+            final MappedTextFile lines = new MappedTextFile(outPath);
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    outputFile = lines;
+                    view.showOutputLines(linesOf(lines));
+                }
+            });
+
+            try (BufferedReader reader = StreamUtil.openReader(inputPath.toString());
+                 Writer writer = StreamUtil.openWriter(outPath.toString())) {
+                model.processStream(reader, writer, new Model.BatchListener() {
+                    @Override
+                    public boolean batchWritten(long linesProcessed) {
+                        // Map and show the lines just flushed (on the EDT, which owns the mapped file)
+                        SwingUtilities.invokeLater(new Runnable() {
+                            @Override
+                            public void run() {
+                                try {
+                                    if (outputFile == lines && lines.refresh()) view.outputLinesChanged();
+                                } catch (IOException e) {
+                                    StaticUtil.log("Error mapping output: " + e.getMessage());
+                                }
+                            }
+                        });
+                        postProgress(linesProcessed);
+                        return !cancelRequested;
+                    }
+                });
+            }
+        }
+
+        @Override
+        void finished() {
+            // File-backed output stays in its temp file
+            if (inputPath == null) {
+                model.setOutputText(view.getOutputTextArea().getText());
+                lineOutputs = outputs;
+            }
+        }
+
+        @Override
+        void cancelled() {
+            // Keep the partial output that was already appended (but don't patch it incrementally later)
+            if (inputPath == null) model.setOutputText(view.getOutputTextArea().getText());
+        }
+    }
+
+    /**
+     * Reprocesses the input lines edited since the last run, then patches their output into the output area.
+     *
+     * <p>Lines before the first and after the last edited line keep their output from the last run; the edited
+     * range is run through {@link Model#processLines(String[], String[], int, Model.BatchListener)} (which itself
+     * skips line contents it has seen before) and its output replaces the old range's output lines.</p>
+     */
+    private class ReprocessTask extends BackgroundTask {
+        private final String[] dirtyLines;
+        private final String[] dirtyOutputs;
+        private final int prefix;
+        private final int suffix;
+        private final String[] oldOutputs;
+
+        ReprocessTask(String[] dirtyLines, int prefix, int suffix, String[] oldOutputs) {
+            super("Reprocessing", "lines", dirtyLines.length);
+            this.dirtyLines = dirtyLines;
+            this.dirtyOutputs = new String[dirtyLines.length];
+            this.prefix = prefix;
+            this.suffix = suffix;
+            this.oldOutputs = oldOutputs;
+        }
+
+        @Override
+        protected Void doInBackground() {
+            model.processLines(dirtyLines, dirtyOutputs, prefix + 1, new Model.BatchListener() {
+                @Override
+                public boolean batchWritten(long linesProcessed) {
+                    postProgress(linesProcessed);
+                    return !cancelRequested;
+                }
+            });
+            // A trailing empty line, i.e. a final line break, has no output
+            if (suffix == 0 && endsWithLineBreak(dirtyLines)) {
+                dirtyOutputs[dirtyOutputs.length - 1] = null;
+            }
+            return null;
+        }
+
+        @Override
+        void finished() {
+            // Replace the old range's output lines
+            int oldCount = oldOutputs.length;
+            int outputStart = countOutputs(oldOutputs, 0, prefix);
+            int oldOutputCount = countOutputs(oldOutputs, prefix, oldCount - suffix);
+            StringBuilder patch = new StringBuilder();
+            for (String output : dirtyOutputs) {
+                if (output != null) patch.append(output).append('\n');
+            }
+            AbstractDocument output = (AbstractDocument) view.getOutputTextArea().getDocument();
+            Element outputRoot = output.getDefaultRootElement();
+            int startOffset = lineStartOffset(output, outputRoot, outputStart);
+            int endOffset = lineStartOffset(output, outputRoot, outputStart + oldOutputCount);
+            try {
+                output.replace(startOffset, endOffset - startOffset, patch.toString(), null);
+            } catch (BadLocationException e) {
+                // Leave lineOutputs unset, so the next run reprocesses everything
+                StaticUtil.log("Error patching output, process again to reprocess everything: " + e.getMessage());
+                return;
+            }
+
+            String[] newOutputs = new String[prefix + dirtyOutputs.length + suffix];
+            System.arraycopy(oldOutputs, 0, newOutputs, 0, prefix);
+            System.arraycopy(dirtyOutputs, 0, newOutputs, prefix, dirtyOutputs.length);
+            System.arraycopy(oldOutputs, oldCount - suffix, newOutputs, prefix + dirtyOutputs.length, suffix);
+            lineOutputs = newOutputs;
+            model.setOutputText(view.getOutputTextArea().getText());
+        }
+
+        @Override
+        void cancelled() {
+            // The output area is left as it was, but no longer matches the input: the next run reprocesses everything
+        }
+    }
+
+    // Writes the output text area's content (or the file-backed output) to a file, a chunk at a time
+    private class SaveTask extends BackgroundTask {
+        private final File outFile;
+        private final Document document;
+        private final Path sourceFile;
+
+        SaveTask(File outFile) {
+            super("Saving", "chars", view.getOutputTextArea().getDocument().getLength());
+            this.outFile = outFile;
+            this.document = view.getOutputTextArea().getDocument();
+            this.sourceFile = null;
+        }
+
+        SaveTask(File outFile, Path sourceFile) {
+            super("Saving", "bytes", sourceFile.toFile().length());
+            this.outFile = outFile;
+            this.document = null;
+            this.sourceFile = sourceFile;
+        }
+
+        @Override
+        protected Void doInBackground() throws IOException {
+            if (sourceFile != null) {
+                copySourceFile();
+                return null;
+            }
+
+            final Segment segment = new Segment();
+            final BadLocationException[] failure = new BadLocationException[1];
+            try (Writer writer = StreamUtil.openWriter(outFile.getPath())) {
+                for (long offset = 0; offset < total && !cancelRequested; ) {
+                    final int start = (int) offset;
+                    final int length = (int) Math.min(SAVE_CHUNK_CHARS, total - offset);
+                    // Read the chunk under the document's read lock, straight from its content (no copy)
+                    document.render(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                document.getText(start, length, segment);
+                            } catch (BadLocationException e) {
+                                failure[0] = e;
+                            }
+                        }
+                    });
+                    if (failure[0] != null) throw new IOException("Output changed while saving", failure[0]);
+                    writer.write(segment.array, segment.offset, segment.count);
+                    offset += length;
+                    postProgress(offset);
+                }
+            }
+            return null;
+        }
+
+        private void copySourceFile() throws IOException {
+            byte[] buffer = new byte[SAVE_CHUNK_CHARS];
+            try (InputStream in = Files.newInputStream(sourceFile);
+                 OutputStream out = StreamUtil.openOutputStream(outFile.getPath())) {
+                long copied = 0;
+                int n;
+                while (!cancelRequested && (n = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, n);
+                    copied += n;
+                    postProgress(copied);
+                }
+            }
+        }
+
+        @Override
+        void finished() {}
+
+        @Override
+        void cancelled() {
+            // Don't leave a truncated file behind
+            if (!outFile.delete()) StaticUtil.log("Could not delete partially saved file: " + outFile);
+        }
+    }
+
+    // Reads an input file into the input text area, or maps it file-backed when it's large
+    // (gzip input is decompressed to a temp file first)
+    private class LoadTask extends BackgroundTask {
+        private final Path file;
+        private Path tempFile;
+        private MappedTextFile lines;
+        private String text;
+
+        LoadTask(Path file) {
+            super("Loading", "bytes", file.toFile().length());
+            this.file = file;
+        }
+
+        @Override
+        protected Void doInBackground() throws IOException {
+            try {
+                Path source = file;
+                if (StreamUtil.isGzipFile(file)) {
+                    tempFile = Files.createTempFile("preprocessit-input", ".txt");
+                    tempFile.toFile().deleteOnExit();
+                    try (InputStream in = StreamUtil.openInputStream(file.toString())) {
+                        Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    source = tempFile;
+                }
+
+                if (Files.size(source) >= LINES_VIEW_THRESHOLD) {
+                    lines = new MappedTextFile(source);
+                    lines.refresh(this::postProgress);
+                } else {
+                    StringBuilder content = new StringBuilder();
+                    char[] buffer = new char[SAVE_CHUNK_CHARS];
+                    try (Reader reader = StreamUtil.openReader(source.toString())) {
+                        int n;
+                        while (!cancelRequested && (n = reader.read(buffer)) != -1) {
+                            content.append(buffer, 0, n);
+                        }
+                    }
+                    text = content.toString();
+                    if (tempFile != null) deleteQuietly(tempFile);
+                    tempFile = null;
+                }
+            } catch (IOException | RuntimeException e) {
+                cancelled();
+                throw e;
+            }
+            return null;
+        }
+
+        @Override
+        void finished() {
+            closeInputFile();
+            if (lines != null) {
+                inputFile = lines;
+                inputTempFile = tempFile;
+                view.getInputTextArea().setText("");
+                model.setInputText("");
+                view.showInputLines(linesOf(lines));
+            } else {
+                view.showInputEditor();
+                view.getInputTextArea().setText(text);
+                model.setInputText(text);
+            }
+            inputStale = false;
+        }
+
+        @Override
+        void cancelled() {
+            if (lines != null) closeQuietly(lines);
+            if (tempFile != null) deleteQuietly(tempFile);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package dev.tbm00.preprocessit.model;
+
+import java.util.List;
+
+import dev.tbm00.preprocessit.model.data.Node;
+import dev.tbm00.preprocessit.model.data.Token;
+import dev.tbm00.preprocessit.model.data.enums.ActionResult;
+import dev.tbm00.preprocessit.model.data.enums.ActionSpec;
+import dev.tbm00.preprocessit.model.matcher.MatcherInterface;
+
+/**
+ * Base class of the code {@link ComponentCompiler} generates for a component's attributes.
+ *
+ * <p>A subclass replaces {@code LineProcessor}'s qualifier loop for one token: each attribute becomes a method with
+ * one call per qualifier, and each qualifier a method that calls its matcher and actions through fields of their
+ * concrete types, with the control-flow actions ({@code CONTINUE_*}, {@code EXIT_*}, {@code SHIP}, ...) written out
+ * as plain statements. The generated class lives in its own class loader, so it reaches the line's
+ * {@link LineContext} through the small static helpers here, which the JIT inlines.</p>
+ *
+ * <p>Actions that edit the token list are handed back to {@code LineProcessor}, so their behavior can't drift from
+ * the interpreter's.</p>
+ */
+public abstract class CompiledComponent {
+    private final LineProcessor lineProcessor = new LineProcessor();
+
+    /**
+     * Runs an attribute's qualifiers on the current token, as {@code LineProcessor.processQualifiers} would.
+     *
+     * @param ctx  The current line's context, positioned on the token.
+     * @param slot The attribute's index within the component's attributes.
+     * @return An {@code ActionResult} indicating the next processing step.
+     */
+    public abstract ActionResult runQualifiers(LineContext ctx, int slot);
+
+    // Consume one pending qualifier skip, if any; true means the qualifier must be skipped
+    protected static boolean skipQualifier(LineContext ctx) {
+        if (ctx.skip_qualifier > 0) {
+            ctx.skip_qualifier--;
+            return true;
+        }
+        return false;
+    }
+
+    protected static void setSkip(LineContext ctx, int skipAmount) {
+        ctx.skip_qualifier = skipAmount;
+    }
+
+    // Make word the qualifier's working word, remembering the prior one
+    protected static String enterQualifier(LineContext ctx, String word, MatcherInterface matcher) {
+        ctx.prior_working_word = ctx.working_word;
+        ctx.working_word = word;
+        ctx.current_matcher = matcher;
+        ctx.sequence_end = null;
+        return word;
+    }
+
+    // Match the working token, letting a token sequence matcher continue into the tokens after it
+    protected static String matchToken(LineContext ctx, MatcherInterface matcher, String word) {
+        return LineProcessor.match(ctx, matcher, word, true);
+    }
+
+    protected static String workingWord(LineContext ctx) {
+        return ctx.working_word;
+    }
+
+    protected static void setWorkingWord(LineContext ctx, String word) {
+        ctx.working_word = LineProcessor.substitutePlaceholders(ctx, word);
+    }
+
+    protected static String initialTokenCopy(LineContext ctx) {
+        return ctx.INITIAL_TOKEN_COPY;
+    }
+
+    protected static String initialLineCopy(LineContext ctx) {
+        return ctx.INITIAL_LINE_COPY;
+    }
+
+    // Get the value of the token distance tokens to the left (or right), or "" if there isn't one
+    protected static String neighbor(LineContext ctx, int distance, boolean left) {
+        Node<Token> node = ctx.current_node;
+        for (int i = 0; i < distance && node != null; ++i) {
+            node = left ? node.getPrior() : node.getNext();
+        }
+        return (node != null) ? node.getData().getValue() : "";
+    }
+
+    protected static List<String> log(LineContext ctx) {
+        return ctx.log;
+    }
+
+    protected static void ship(LineContext ctx, int slot) {
+        ctx.shippedValues[slot] = ctx.working_word;
+        ctx.shippedSlots.set(slot);
+    }
+
+    protected static void declareTokenProcessed(LineContext ctx) {
+        ctx.current_node.getData().setProcessed(true);
+        LineProcessor.declareSequenceProcessed(ctx);
+    }
+
+    // Run an action the generated code doesn't specialize, exactly as the interpreter does
+    protected final ActionResult interpret(LineContext ctx, String matchedString, ActionSpec actionSpec, int slot) {
+        return lineProcessor.executeAction(ctx, matchedString, actionSpec, slot);
+    }
+}
@@ -0,0 +1,366 @@
+package dev.tbm00.preprocessit.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import dev.tbm00.preprocessit.model.actioneer.ActioneerFactory;
+import dev.tbm00.preprocessit.model.actioneer.ActioneerInterface;
+import dev.tbm00.preprocessit.model.data.Attribute;
+import dev.tbm00.preprocessit.model.data.Component;
+import dev.tbm00.preprocessit.model.data.Qualifier;
+import dev.tbm00.preprocessit.model.data.enums.ActionSpec;
+import dev.tbm00.preprocessit.model.data.enums.Word;
+import dev.tbm00.preprocessit.model.data.enums.WordSpec;
+import dev.tbm00.preprocessit.model.matcher.MatcherInterface;
+import dev.tbm00.preprocessit.model.matcher.TokenSequenceMatcherInterface;
+
+/**
+ * Compiles a loaded component's attributes into a {@link CompiledComponent} subclass at runtime.
+ *
+ * <p>The generated Java source has one method per attribute and one per qualifier, so every matcher and actioneer
+ * call site sees a single concrete class and the JIT can inline it, instead of the interpreter's shared, megamorphic
+ * dispatch over qualifier lists and action switches. The source is compiled in memory with the JDK's
+ * {@code javax.tools} compiler and loaded by a class loader of its own.</p>
+ *
+ * <p>Compiling needs a JDK (a plain JRE has no compiler); when it isn't possible, {@link #compile(Component)} throws
+ * and the component simply keeps running on the interpreter.</p>
+ */
+class ComponentCompiler {
+    private static final String PACKAGE = "dev.tbm00.preprocessit.generated";
+    private static final AtomicInteger CLASS_COUNTER = new AtomicInteger();
+
+    /** Objects the generated class receives through its constructor, indexed by field number. */
+    private final List<Object> constants = new ArrayList<>();
+    private final StringBuilder fields = new StringBuilder();
+    private final StringBuilder constructor = new StringBuilder();
+
+    /**
+     * Generates, compiles and instantiates the code for a component's attributes.
+     *
+     * @param component The loaded (and optimized) component.
+     * @return The compiled component.
+     * @throws CompileException if the component can't be compiled.
+     */
+    static CompiledComponent compile(Component component) throws CompileException {
+        String className = "Compiled" + component.getName().replaceAll("[^A-Za-z0-9]", "") + "_" + CLASS_COUNTER.incrementAndGet();
+        ComponentCompiler compiler = new ComponentCompiler();
+        String source = compiler.generate(component, className);
+        Class<?> generated = compileSource(PACKAGE + "." + className, source);
+        try {
+            return (CompiledComponent) generated.getConstructor(Object[].class)
+                                                .newInstance((Object) compiler.constants.toArray());
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new CompileException("could not instantiate the generated class: " + e);
+        }
+    }
+
+    /**
+     * Writes the Java source of the component's {@code CompiledComponent} subclass.
+     *
+     * @param component The component.
+     * @param className The simple name of the class to generate.
+     * @return The class's source.
+     * @throws CompileException if a qualifier can't be expressed in generated code.
+     */
+    private String generate(Component component, String className) throws CompileException {
+        StringBuilder methods = new StringBuilder();
+        StringBuilder dispatch = new StringBuilder();
+        ArrayList<Attribute> attributes = component.getAttributes();
+        for (int slot = 0; slot < attributes.size(); slot++) {
+            dispatch.append("            case ").append(slot).append(": return attribute").append(slot).append("(ctx);\n");
+            generateAttribute(methods, attributes.get(slot), slot);
+        }
+
+        return "package " + PACKAGE + ";\n\n"
+             + "import dev.tbm00.preprocessit.model.LineContext;\n"
+             + "import dev.tbm00.preprocessit.model.data.enums.ActionResult;\n\n"
+             + "public final class " + className + " extends dev.tbm00.preprocessit.model.CompiledComponent {\n"
+             + fields
+             + "\n    public " + className + "(Object[] k) {\n" + constructor + "    }\n\n"
+             + "    @Override\n"
+             + "    public ActionResult runQualifiers(LineContext ctx, int slot) {\n"
+             + "        switch (slot) {\n" + dispatch
+             + "            default: throw new IllegalArgumentException(\"No attribute in slot \" + slot);\n"
+             + "        }\n"
+             + "    }\n"
+             + methods
+             + "}\n";
+    }
+
+    private void generateAttribute(StringBuilder out, Attribute attribute, int slot) throws CompileException {
+        ArrayList<Qualifier> qualifiers = attribute.getQualifiers();
+        out.append("\n    private ActionResult attribute").append(slot).append("(LineContext ctx) {\n");
+        if (!qualifiers.isEmpty()) out.append("        ActionResult r;\n");
+        for (int q = 0; q < qualifiers.size(); q++) {
+            out.append("        if (!skipQualifier(ctx) && (r = attribute").append(slot).append("Qualifier").append(q)
+               .append("(ctx)) != ActionResult.NEXT_QUALIFIER) return r;\n");
+        }
+        out.append("        return ActionResult.NEXT_TOKEN;\n    }\n");
+
+        for (int q = 0; q < qualifiers.size(); q++) {
+            Qualifier qualifier = qualifiers.get(q);
+            if (qualifier.getMatcher() == null) {
+                throw new CompileException(attribute.getName() + "'s qualifier " + qualifier.getID() + " has no matcher");
+            }
+            String matcher = constant(qualifier.getMatcher(), MatcherInterface.class);
+            String enter = "enterQualifier(ctx, " + wordExpression(attribute, qualifier) + ", " + matcher + ")";
+            out.append("\n    private ActionResult attribute").append(slot).append("Qualifier").append(q).append("(LineContext ctx) {\n");
+            if (qualifier.getMatcher() instanceof TokenSequenceMatcherInterface && qualifier.getWordSpec().getWord() == Word.WORKING_TOKEN) {
+                out.append("        String m = matchToken(ctx, ").append(matcher).append(", ").append(enter).append(");\n");
+            } else {
+                out.append("        String m = ").append(matcher).append(".match(").append(enter).append(");\n");
+            }
+            out.append("        if (!m.isEmpty()) {\n");
+            generateActions(out, qualifier.getQualifiedActions(), slot);
+            out.append("        } else {\n");
+            generateActions(out, qualifier.getUnqualifiedActions(), slot);
+            out.append("        }\n    }\n");
+        }
+    }
+
+    /**
+     * Writes the statements for an action list, mirroring {@code LineProcessor.executeAction} for attributes.
+     *
+     * @param out     The source being generated.
+     * @param actions The qualified or unqualified actions.
+     * @param slot    The attribute's slot.
+     */
+    private void generateActions(StringBuilder out, ActionSpec[] actions, int slot) {
+        String indent = "            ";
+        for (ActionSpec actionSpec : actions) {
+            switch (actionSpec.getAction()) {
+                case DELETE_LINE:
+                    continue; // only has an effect in LineRules
+                case EXIT_TO_NEXT_LINE_ITERATION:
+                    out.append(indent).append("return ActionResult.NEXT_LINE;\n");
+                    return;
+                case EXIT_TO_NEXT_ATTRIBUTE_ITERATION:
+                    out.append(indent).append("return ActionResult.NEXT_ATTRIBUTE;\n");
+                    return;
+                case EXIT_TO_NEXT_TOKEN_ITERATION:
+                    out.append(indent).append("return ActionResult.NEXT_TOKEN;\n");
+                    return;
+                case CONTINUE_TO_NEXT_QUALIFIER:
+                    out.append(indent).append("return ActionResult.NEXT_QUALIFIER;\n");
+                    return;
+                case CONTINUE_AND_SKIP_NEXT_QUALIFIER:
+                    out.append(indent).append("setSkip(ctx, ").append(skipAmount(actionSpec)).append(");\n")
+                       .append(indent).append("return ActionResult.NEXT_QUALIFIER;\n");
+                    return;
+                case SHIP:
+                    out.append(indent).append("ship(ctx, ").append(slot).append(");\n");
+                    break;
+                case DECLARE_TOKEN_PROCESSED:
+                    out.append(indent).append("declareTokenProcessed(ctx);\n");
+                    break;
+                case SET_WORKING_WORD:
+                    out.append(indent).append("setWorkingWord(ctx, ").append(constant(actionSpec, ActionSpec.class))
+                       .append(".getParameter());\n");
+                    break;
+                case SET_TOKEN_VALUE:
+                case TRY_NEIGHBORS:
+                case TRIM_MATCH_FROM_LEFT_NEIGHBOR:
+                case TRIM_MATCH_FROM_RIGHT_NEIGHBOR:
+                case TRIM_MATCH_FROM_TOKEN:
+                case TRIM_UNMATCHED_FROM_TOKEN:
+                case NEW_TOKEN_FROM_MATCH:
+                case NEW_TOKEN_FROM_UNMATCHED:
+                    out.append(indent).append("interpret(ctx, m, ").append(constant(actionSpec, ActionSpec.class))
+                       .append(", ").append(slot).append(");\n");
+                    break;
+                default:
+                    ActioneerInterface actioneer = ActioneerFactory.getActioneer(actionSpec.getAction());
+                    if (actioneer == null) break;
+                    out.append(indent).append("setWorkingWord(ctx, ").append(constant(actioneer, ActioneerInterface.class))
+                       .append(".execute(workingWord(ctx), ").append(constant(actionSpec, ActionSpec.class))
+                       .append(", m, log(ctx)));\n");
+                    break;
+            }
+        }
+        out.append(indent).append("return ActionResult.NEXT_QUALIFIER;\n");
+    }
+
+    /**
+     * Gets the expression for a qualifier's working word, mirroring {@code LineProcessor.determineWorkingWord}.
+     *
+     * @param attribute The qualifier's attribute (for error messages).
+     * @param qualifier The qualifier.
+     * @return A Java expression of type {@code String}.
+     * @throws CompileException if the word's parameter isn't a number (which the interpreter fails on).
+     */
+    private String wordExpression(Attribute attribute, Qualifier qualifier) throws CompileException {
+        WordSpec wordSpec = qualifier.getWordSpec();
+        int distance;
+        try {
+            distance = Integer.parseInt(wordSpec.getParameter());
+        } catch (NumberFormatException e) {
+            throw new CompileException(attribute.getName() + "'s qualifier " + qualifier.getID()
+                    + " has a non-numeric word parameter: " + wordSpec);
+        }
+
+        switch (wordSpec.getWord()) {
+            case WORKING_TOKEN:
+            case WORKING_LINE:
+                return "workingWord(ctx)";
+            case INITIAL_LINE_COPY:
+                return "initialLineCopy(ctx)";
+            case LEFT_NEIGHBOR:
+                return "neighbor(ctx, " + distance + ", true)";
+            case RIGHT_NEIGHBOR:
+                return "neighbor(ctx, " + distance + ", false)";
+            default:
+                return "initialTokenCopy(ctx)";
+        }
+    }
+
+    /**
+     * Adds a constant field holding {@code value}, typed as its concrete class when the generated code can name it.
+     *
+     * @param value    The object.
+     * @param fallback The public type to use otherwise.
+     * @return The field's name.
+     */
+    private String constant(Object value, Class<?> fallback) {
+        Class<?> type = value.getClass();
+        if (!Modifier.isPublic(type.getModifiers()) || type.getEnclosingClass() != null) type = fallback;
+
+        String name = "k" + constants.size();
+        fields.append("    private final ").append(type.getName()).append(' ').append(name).append(";\n");
+        constructor.append("        ").append(name).append(" = (").append(type.getName()).append(") k[")
+                   .append(constants.size()).append("];\n");
+        constants.add(value);
+        return name;
+    }
+
+    // Parse a skip count the same way LineProcessor does at runtime
+    private static int skipAmount(ActionSpec actionSpec) {
+        try {
+            int parsed = Integer.parseInt(actionSpec.getParameter());
+            return (parsed < 0) ? 1 : parsed;
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    /**
+     * Compiles a single class in memory and loads it in a new class loader.
+     *
+     * @param className The class's fully qualified name.
+     * @param source    The class's source.
+     * @return The loaded class.
+     * @throws CompileException if there's no compiler or the source doesn't compile.
+     */
+    private static Class<?> compileSource(String className, String source) throws CompileException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new CompileException("no Java compiler available (running on a JRE instead of a JDK?)");
+        }
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager standardManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8);
+        Map<String, ByteArrayOutputStream> classFiles = new HashMap<>();
+        JavaFileManager fileManager = new ForwardingJavaFileManager<StandardJavaFileManager>(standardManager) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String name, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("mem:///" + name.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                        classFiles.put(name, bytes);
+                        return bytes;
+                    }
+                };
+            }
+        };
+        JavaFileObject sourceFile = new SimpleJavaFileObject(
+                URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+
+        List<String> options = Arrays.asList("-classpath", classPath(), "-proc:none", "-nowarn");
+        Boolean compiled = compiler.getTask(null, fileManager, diagnostics, options, null,
+                                            Collections.singletonList(sourceFile)).call();
+        if (!Boolean.TRUE.equals(compiled)) {
+            StringBuilder message = new StringBuilder("generated code didn't compile");
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                message.append("\n  line ").append(diagnostic.getLineNumber()).append(": ").append(diagnostic.getMessage(null));
+            }
+            throw new CompileException(message.toString());
+        }
+
+        ClassLoader loader = new ClassLoader(CompiledComponent.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                ByteArrayOutputStream bytes = classFiles.get(name);
+                if (bytes == null) return super.findClass(name);
+                byte[] classFile = bytes.toByteArray();
+                return defineClass(name, classFile, 0, classFile.length);
+            }
+        };
+        try {
+            return loader.loadClass(className);
+        } catch (ClassNotFoundException e) {
+            throw new CompileException("generated class not found: " + className);
+        }
+    }
+
+    /**
+     * Gets the class path the generated code compiles against: the JVM's class path plus wherever this program's
+     * classes were loaded from.
+     *
+     * @return The class path.
+     */
+    private static String classPath() {
+        String classPath = System.getProperty("java.class.path", "");
+        try {
+            String ownLocation = Paths.get(CompiledComponent.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+            classPath = classPath.isEmpty() ? ownLocation : classPath + File.pathSeparator + ownLocation;
+        } catch (Exception e) {
+            // Fall back to the JVM's class path alone
+        }
+        return classPath;
+    }
+
+    /**
+     * Thrown when a component can't be compiled; the component then stays on the interpreter.
+     */
+    static class CompileException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Constructs a new CompileException with the specified detail message.
+         *
+         * @param message The reason the component couldn't be compiled.
+         */
+        CompileException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package dev.tbm00.preprocessit.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import dev.tbm00.preprocessit.model.actioneer.ActioneerFactory;
+import dev.tbm00.preprocessit.model.data.Attribute;
+import dev.tbm00.preprocessit.model.data.Component;
+import dev.tbm00.preprocessit.model.data.LineRule;
+import dev.tbm00.preprocessit.model.data.Qualifier;
+import dev.tbm00.preprocessit.model.data.TokenPrefilter;
+import dev.tbm00.preprocessit.model.data.enums.Action;
+import dev.tbm00.preprocessit.model.data.enums.ActionSpec;
+import dev.tbm00.preprocessit.model.data.enums.Word;
+import dev.tbm00.preprocessit.model.data.enums.WordSpec;
+
+/**
+ * Static optimizer pass run over each component once it's loaded.
+ *
+ * <p>For every attribute it builds the qualifier control-flow graph (each qualifier's qualified and unqualified
+ * actions lead to the next qualifier, to a qualifier further down via {@code CONTINUE_AND_SKIP_NEXT_QUALIFIER},
+ * or out of the attribute via an {@code EXIT_*} action) and then:</p>
+ * <ul>
+ *   <li>drops actions listed after the action that ends their list,</li>
+ *   <li>drops qualifiers no path from the first qualifier reaches, rewriting skip counts to match, and</li>
+ *   <li>drops attributes missing from {@code attributeOutputOrder} whose only effect is shipping a value
+ *       nobody reads (no token edits, new tokens, or {@code EXIT_TO_NEXT_LINE_ITERATION}), except for the last
+ *       attribute when the output line rule can read the token state it leaves behind.</li>
+ * </ul>
+ *
+ * <p>Finally it derives each attribute's {@link TokenPrefilter}, letting {@code LineProcessor} skip tokens the first
+ * qualifier would send straight on to the next token.</p>
+ *
+ * <p>None of this changes a line's output. A skip that can run past an attribute's last qualifier carries over
+ * into the next token or attribute, so components containing one are left exactly as configured.</p>
+ */
+class ComponentOptimizer {
+    /** Actions (in attributes) whose effects reach beyond the working word and the attribute's own shipped value. */
+    private static final EnumSet<Action> OBSERVABLE_ACTIONS = EnumSet.of(
+            Action.TRY_NEIGHBORS,
+            Action.NEW_TOKEN_FROM_MATCH,
+            Action.NEW_TOKEN_FROM_UNMATCHED,
+            Action.DECLARE_TOKEN_PROCESSED,
+            Action.EXIT_TO_NEXT_LINE_ITERATION,
+            Action.TRIM_MATCH_FROM_LEFT_NEIGHBOR,
+            Action.TRIM_MATCH_FROM_RIGHT_NEIGHBOR,
+            Action.TRIM_MATCH_FROM_TOKEN,
+            Action.TRIM_UNMATCHED_FROM_TOKEN,
+            Action.SET_TOKEN_VALUE);
+
+    /** Successor meaning "leaves the attribute for this token". */
+    private static final int EXIT = -1;
+
+    private final List<String> report = new ArrayList<>();
+
+    /**
+     * Optimizes the component's attributes in place.
+     *
+     * @param component The freshly loaded component.
+     * @return A line per removal made (empty if nothing was removed).
+     */
+    List<String> optimize(Component component) {
+        report.clear();
+        ArrayList<Attribute> attributes = component.getAttributes();
+        for (Attribute attribute : attributes) {
+            if (canSkipPastEnd(attribute.getQualifiers())) {
+                report.add("skipped optimizing " + component.getName() + " (" + attribute.getName()
+                        + " can skip past its last qualifier)");
+                derivePrefilters(component);
+                return new ArrayList<>(report);
+            }
+        }
+
+        for (Attribute attribute : attributes) {
+            trimActions(component, attribute);
+            pruneQualifiers(component, attribute);
+        }
+        derivePrefilters(component);
+
+        // The last attribute run leaves its token state behind for the output line rule, so it has to stay if the rule
+        // can read that; any other attribute's state is overwritten by the next attribute kept
+        Attribute last = attributes.isEmpty() ? null : attributes.get(attributes.size() - 1);
+        boolean keepLast = readsTokenState(component.getOutputLineRule());
+        ArrayList<Attribute> kept = new ArrayList<>();
+        for (Attribute attribute : attributes) {
+            if (keepLast && attribute == last) {
+                kept.add(attribute);
+            } else if (!component.getAttributeOrder().contains(attribute.getName()) && !isObservable(attribute)) {
+                report.add("removed attribute " + component.getName() + "'s " + attribute.getName()
+                        + " (not in attributeOutputOrder and has no side effects)");
+            } else {
+                kept.add(attribute);
+            }
+        }
+        if (kept.size() != attributes.size()) {
+            component.setAttributes(kept);
+        }
+        return new ArrayList<>(report);
+    }
+
+    /**
+     * Gives each attribute whose first qualifier rejects a token by going straight to the next token a
+     * {@link TokenPrefilter} derived from that qualifier's condition.
+     *
+     * <p>That only holds when the first qualifier looks at the token itself ({@code WORKING_TOKEN} or
+     * {@code INITIAL_TOKEN_COPY}) and its unqualified actions do nothing observable before
+     * {@code EXIT_TO_NEXT_TOKEN_ITERATION}; a token the prefilter rejects then skips the qualifiers entirely.</p>
+     *
+     * @param component The component whose attributes get prefilters.
+     */
+    private void derivePrefilters(Component component) {
+        for (Attribute attribute : component.getAttributes()) {
+            attribute.setPrefilter(null);
+            if (attribute.getQualifiers().isEmpty()) continue;
+
+            Qualifier first = attribute.getQualifiers().get(0);
+            WordSpec wordSpec = first.getWordSpec();
+            if (wordSpec.getWord() != Word.WORKING_TOKEN && wordSpec.getWord() != Word.INITIAL_TOKEN_COPY) continue;
+            try {
+                Integer.parseInt(wordSpec.getParameter());
+            } catch (NumberFormatException e) {
+                continue; // LineProcessor fails on this qualifier, so don't hide that
+            }
+            if (!rejectsToNextToken(first.getUnqualifiedActions())) continue;
+
+            TokenPrefilter prefilter = TokenPrefilter.forCondition(first.getCondition(), first.getValues());
+            if (prefilter != null) {
+                attribute.setPrefilter(prefilter);
+                report.add("prefiltering " + component.getName() + "'s " + attribute.getName() + " to " + prefilter);
+            }
+        }
+    }
+
+    /**
+     * Checks whether an action list only ever moves on to the next token, touching nothing else on the way.
+     *
+     * @param actions The unqualified actions.
+     * @return {@code true} if it ends in {@code EXIT_TO_NEXT_TOKEN_ITERATION}, preceded only by actions whose effects end with the token.
+     */
+    private boolean rejectsToNextToken(ActionSpec[] actions) {
+        int end = terminator(actions);
+        if (end == actions.length || actions[end].getAction() != Action.EXIT_TO_NEXT_TOKEN_ITERATION) return false;
+        for (int i = 0; i < end; i++) {
+            Action action = actions[i].getAction();
+            if (action != Action.SET_WORKING_WORD && action != Action.DELETE_LINE) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether any reachable qualifier can skip past the end of the list.
+     *
+     * @param qualifiers The attribute's qualifiers.
+     * @return {@code true} if a skip count can outlive the attribute's qualifier loop.
+     */
+    private boolean canSkipPastEnd(List<Qualifier> qualifiers) {
+        boolean[] reachable = reachable(qualifiers);
+        for (int i = 0; i < qualifiers.size(); i++) {
+            if (!reachable[i]) continue;
+            Qualifier qualifier = qualifiers.get(i);
+            if (successor(qualifier.getQualifiedActions(), i) > qualifiers.size()
+                    || successor(qualifier.getUnqualifiedActions(), i) > qualifiers.size()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drops every action after the one that ends each action list.
+     *
+     * @param component The attribute's component (for reporting).
+     * @param attribute The attribute to trim.
+     */
+    private void trimActions(Component component, Attribute attribute) {
+        for (Qualifier qualifier : attribute.getQualifiers()) {
+            ActionSpec[] qualified = trim(qualifier.getQualifiedActions());
+            ActionSpec[] unqualified = trim(qualifier.getUnqualifiedActions());
+            int removed = qualifier.getQualifiedActions().length - qualified.length
+                        + qualifier.getUnqualifiedActions().length - unqualified.length;
+            if (removed > 0) {
+                qualifier.setQualifiedActions(qualified);
+                qualifier.setUnqualifiedActions(unqualified);
+                report.add("removed " + removed + " unreachable action(s) from " + component.getName() + "'s "
+                        + attribute.getName() + "'s qualifier " + qualifier.getID());
+            }
+        }
+    }
+
+    /**
+     * Drops qualifiers that can't be reached from the first qualifier and rewrites skip counts over the survivors.
+     *
+     * @param component The attribute's component (for reporting).
+     * @param attribute The attribute to prune.
+     */
+    private void pruneQualifiers(Component component, Attribute attribute) {
+        ArrayList<Qualifier> qualifiers = attribute.getQualifiers();
+        boolean[] reachable = reachable(qualifiers);
+
+        // newIndex[i] = how many reachable qualifiers come before i (valid for i == size too)
+        int[] newIndex = new int[qualifiers.size() + 1];
+        for (int i = 0; i < qualifiers.size(); i++) {
+            newIndex[i + 1] = newIndex[i] + (reachable[i] ? 1 : 0);
+        }
+        if (newIndex[qualifiers.size()] == qualifiers.size()) return;
+
+        ArrayList<Qualifier> kept = new ArrayList<>();
+        for (int i = 0; i < qualifiers.size(); i++) {
+            Qualifier qualifier = qualifiers.get(i);
+            if (!reachable[i]) {
+                report.add("removed unreachable qualifier " + component.getName() + "'s " + attribute.getName()
+                        + "'s " + qualifier.getID());
+                continue;
+            }
+            qualifier.setQualifiedActions(rewriteSkip(qualifier.getQualifiedActions(), i, newIndex));
+            qualifier.setUnqualifiedActions(rewriteSkip(qualifier.getUnqualifiedActions(), i, newIndex));
+            kept.add(qualifier);
+        }
+        attribute.setQualifiers(kept);
+    }
+
+    /**
+     * Marks the qualifiers reachable from the first one.
+     *
+     * @param qualifiers The attribute's qualifiers.
+     * @return Whether each qualifier is reachable.
+     */
+    private boolean[] reachable(List<Qualifier> qualifiers) {
+        boolean[] reachable = new boolean[qualifiers.size()];
+        if (qualifiers.isEmpty()) return reachable;
+
+        // Edges only ever point forward, so a single pass in order suffices
+        reachable[0] = true;
+        for (int i = 0; i < qualifiers.size(); i++) {
+            if (!reachable[i]) continue;
+            Qualifier qualifier = qualifiers.get(i);
+            mark(reachable, successor(qualifier.getQualifiedActions(), i));
+            mark(reachable, successor(qualifier.getUnqualifiedActions(), i));
+        }
+        return reachable;
+    }
+
+    private void mark(boolean[] reachable, int index) {
+        if (index >= 0 && index < reachable.length) reachable[index] = true;
+    }
+
+    /**
+     * Finds where qualifier {@code index} goes after running the given actions.
+     *
+     * @param actions The qualified or unqualified actions.
+     * @param index   The qualifier's index.
+     * @return The next qualifier's index (possibly at or past the end), or {@link #EXIT}.
+     */
+    private int successor(ActionSpec[] actions, int index) {
+        int end = terminator(actions);
+        if (end == actions.length) return index + 1;
+        switch (actions[end].getAction()) {
+            case CONTINUE_TO_NEXT_QUALIFIER:
+                return index + 1;
+            case CONTINUE_AND_SKIP_NEXT_QUALIFIER:
+                return index + 1 + skipAmount(actions[end]);
+            default:
+                return EXIT;
+        }
+    }
+
+    /**
+     * Finds the first action that ends an action list in an attribute.
+     *
+     * @param actions The action list.
+     * @return Its index, or {@code actions.length} if the list runs to the end.
+     */
+    private int terminator(ActionSpec[] actions) {
+        for (int i = 0; i < actions.length; i++) {
+            switch (actions[i].getAction()) {
+                case CONTINUE_TO_NEXT_QUALIFIER:
+                case CONTINUE_AND_SKIP_NEXT_QUALIFIER:
+                case EXIT_TO_NEXT_TOKEN_ITERATION:
+                case EXIT_TO_NEXT_ATTRIBUTE_ITERATION:
+                case EXIT_TO_NEXT_LINE_ITERATION:
+                    return i;
+                default:
+                    break;
+            }
+        }
+        return actions.length;
+    }
+
+    private ActionSpec[] trim(ActionSpec[] actions) {
+        int end = terminator(actions);
+        return (end >= actions.length - 1) ? actions : Arrays.copyOf(actions, end + 1);
+    }
+
+    private ActionSpec[] rewriteSkip(ActionSpec[] actions, int index, int[] newIndex) {
+        int end = terminator(actions);
+        if (end == actions.length || actions[end].getAction() != Action.CONTINUE_AND_SKIP_NEXT_QUALIFIER) {
+            return actions;
+        }
+        int target = index + 1 + skipAmount(actions[end]);
+        int skip = newIndex[target] - newIndex[index] - 1;
+        ActionSpec[] rewritten = actions.clone();
+        rewritten[end] = (skip == 0) ? new ActionSpec(Action.CONTINUE_TO_NEXT_QUALIFIER, null)
+                                     : new ActionSpec(Action.CONTINUE_AND_SKIP_NEXT_QUALIFIER, String.valueOf(skip));
+        return rewritten;
+    }
+
+    /**
+     * Checks whether an attribute does anything besides ship its own value.
+     *
+     * @param attribute The attribute.
+     * @return {@code true} if any of its actions edits tokens or ends the line.
+     */
+    private boolean isObservable(Attribute attribute) {
+        for (Qualifier qualifier : attribute.getQualifiers()) {
+            for (ActionSpec[] actions : new ActionSpec[][] {qualifier.getQualifiedActions(), qualifier.getUnqualifiedActions()}) {
+                for (ActionSpec actionSpec : actions) {
+                    if (OBSERVABLE_ACTIONS.contains(actionSpec.getAction())) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a line rule can see the token state the attributes leave behind ({@code INITIAL_TOKEN_COPY},
+     * {@code PRIOR_TOKEN_VALUE} and the current token).
+     *
+     * <p>Besides looking at {@code INITIAL_TOKEN_COPY} or a neighbor, that's any action whose result has its
+     * placeholders filled in: {@code SET_WORKING_WORD} with a placeholder, and every actioneer action, as the line
+     * itself may contain one.</p>
+     *
+     * @param lineRule The output line rule, or {@code null}.
+     * @return {@code true} unless none of its qualifiers can read that state.
+     */
+    private boolean readsTokenState(LineRule lineRule) {
+        if (lineRule == null || lineRule.getQualifiers() == null) return false;
+        for (Qualifier qualifier : lineRule.getQualifiers()) {
+            Word word = qualifier.getWordSpec().getWord();
+            if (word != Word.WORKING_TOKEN && word != Word.WORKING_LINE && word != Word.INITIAL_LINE_COPY) return true;
+            for (ActionSpec[] actions : new ActionSpec[][] {qualifier.getQualifiedActions(), qualifier.getUnqualifiedActions()}) {
+                for (ActionSpec actionSpec : actions) {
+                    if (actionSpec.getAction() == Action.SET_WORKING_WORD) {
+                        if (actionSpec.getParameter() != null && actionSpec.getParameter().contains("$")) return true;
+                    } else if (ActioneerFactory.getActioneer(actionSpec.getAction()) != null) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses a skip count the same way {@code LineProcessor} does at runtime.
+     *
+     * @param actionSpec The {@code CONTINUE_AND_SKIP_NEXT_QUALIFIER} action.
+     * @return The number of qualifiers skipped.
+     */
+    private int skipAmount(ActionSpec actionSpec) {
+        try {
+            int parsed = Integer.parseInt(actionSpec.getParameter());
+            return (parsed < 0) ? 1 : parsed;
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+}
@@ -23,9 +23,11 @@ import dev.tbm00.preprocessit.model.data.Component;
 import dev.tbm00.preprocessit.model.data.LineRule;
 import dev.tbm00.preprocessit.model.data.Attribute;
 import dev.tbm00.preprocessit.model.data.Qualifier;
+import dev.tbm00.preprocessit.model.data.ValueMap;
 import dev.tbm00.preprocessit.model.data.enums.Action;
 import dev.tbm00.preprocessit.model.data.enums.ActionSpec;
 import dev.tbm00.preprocessit.model.data.enums.Condition;
+import dev.tbm00.preprocessit.model.data.enums.ExecutorStrategy;
 import dev.tbm00.preprocessit.model.data.enums.Word;
 import dev.tbm00.preprocessit.model.data.enums.WordSpec;
 
@@ -40,6 +42,10 @@ public class ConfigHandler {
 
     private boolean poolingEnabled;
     private int configuredPoolSize;
+    private ExecutorStrategy executorStrategy = ExecutorStrategy.FIXED;
+    private boolean lineTracing;
+    private boolean compileComponents;
+    private boolean optimizeComponents = true;
 
     /**
      * Constructs a new ConfigHandler instance.
@@ -167,19 +173,46 @@ public class ConfigHandler {
 
             // Load thread pool size override
             Object overrideObj = data.get(StaticUtil.KEY_CONCURRENT_OVERRIDE);
+            configuredPoolSize = 0;
             if (poolingEnabled && overrideObj != null) {
                 try {
-                    configuredPoolSize = Math.max(1,
+                    configuredPoolSize = Math.max(0,
                         Integer.parseInt(overrideObj.toString())
                     );
-                    log("Loaded thread pool size override: " + configuredPoolSize);
+                    if (configuredPoolSize > 0) log("Loaded thread pool size override: " + configuredPoolSize);
+                    else log("No thread pool size override, defaulting to available processors");
                 } catch (NumberFormatException ex) {
-                    log("Invalid threadPoolSizeOverride, defaulting to 1");
-                    configuredPoolSize = 1;
+                    log("Invalid threadPoolSizeOverride, defaulting to available processors");
                 }
-            } else {
-                configuredPoolSize = 1;
-            } log(" ");
+            }
+
+            // Load executor strategy
+            Object strategyObj = data.get(StaticUtil.KEY_EXECUTOR_STRATEGY);
+            executorStrategy = ExecutorStrategy.FIXED;
+            if (poolingEnabled && strategyObj != null) {
+                try {
+                    executorStrategy = ExecutorStrategy.valueOf(strategyObj.toString().trim().replace("-", "_").toUpperCase());
+                } catch (IllegalArgumentException ex) {
+                    log("Invalid executorStrategy '" + strategyObj + "', defaulting to FIXED");
+                }
+            }
+            if (poolingEnabled) log("Loaded executor strategy: " + executorStrategy.name());
+
+            // Load line tracing toggle
+            Object tracingObj = data.get(StaticUtil.KEY_LINE_TRACING);
+            lineTracing = Boolean.TRUE.equals(tracingObj);
+            log("Line tracing " + (lineTracing ? "enabled" : "disabled") + " in config");
+
+            // Load component compilation toggle
+            Object compileObj = data.get(StaticUtil.KEY_COMPILE_COMPONENTS);
+            compileComponents = Boolean.TRUE.equals(compileObj);
+            log("Component compilation " + (compileComponents ? "enabled" : "disabled") + " in config");
+
+            // Load component optimization toggle (on unless explicitly disabled)
+            Object optimizeObj = data.get(StaticUtil.KEY_OPTIMIZE_COMPONENTS);
+            optimizeComponents = !Boolean.FALSE.equals(optimizeObj);
+            log("Component optimization " + (optimizeComponents ? "enabled" : "disabled") + " in config");
+            log(" ");
 
             Map<String, Object> componentMap = (Map<String, Object>) data.get(StaticUtil.KEY_COMPONENTS);
             if (componentMap == null) {
@@ -190,6 +223,7 @@ public class ConfigHandler {
             // Clear components before loading a new config
             model.clearComponents();
             int componentID = 0;
+            ComponentOptimizer optimizer = new ComponentOptimizer();
             
             // Iterate over each component entry
             int i = 1;
@@ -197,6 +231,19 @@ public class ConfigHandler {
                 log("[component: " + i +"]");
                 Component component = loadComponent(componentID, componentEntry);
                 if (component != null) {
+                    if (optimizeComponents) {
+                        for (String removal : optimizer.optimize(component)) {
+                            log("- Optimizer " + removal);
+                        }
+                    }
+                    if (compileComponents) {
+                        try {
+                            component.setCompiled(ComponentCompiler.compile(component));
+                            log("- Compiled component " + component.getName());
+                        } catch (ComponentCompiler.CompileException e) {
+                            log("- Could not compile component " + component.getName() + ", interpreting it instead: " + e.getMessage());
+                        }
+                    }
                     model.addComponent(component);
                     componentID++;
                     log("- - - - Component Loaded: " + component.getName() + " " + component.getAttributeOrder() + "\n");
@@ -507,7 +554,12 @@ public class ConfigHandler {
         }
         ActionSpec[] unqualifiedActions = unqualifiedActionsList.toArray(new ActionSpec[0]);
 
-        return new Qualifier(qualifierKey, wordSpec, condition, qualifierValue, qualifiedActions, unqualifiedActions);
+        Qualifier qualifier = new Qualifier(qualifierKey, wordSpec, condition, qualifierValue, qualifiedActions, unqualifiedActions);
+        if (qualifier.getMatcher() == null) {
+            log("- Matcher Not Loaded: " + componentName + (isLineRule ? "" : "'s " + attributeName) + "'s " + qualifierConditionStr + " " + qualifierValue);
+            return null;
+        }
+        return qualifier;
     }
 
     /**
@@ -572,16 +624,30 @@ public class ConfigHandler {
                 param = param.substring(1, param.length() - 1);
             }
 
+            Action action;
             try {
-                Action action = Action.valueOf(actionName);
-                return new ActionSpec(action, param);
+                action = Action.valueOf(actionName);
             } catch (IllegalArgumentException e) {
                 log(" Invalid Action Enum: " + actionStr);
                 return null;
             }
+            if (action == Action.MAP_VALUE) {
+                // load the table now, so a bad one fails the config instead of every lookup
+                try {
+                    ValueMap.load(param);
+                } catch (IOException e) {
+                    log(" Invalid Table: " + actionStr + " (" + e.getMessage() + ")");
+                    return null;
+                }
+            }
+            return new ActionSpec(action, param);
         } else {
             try {
                 Action action = Action.valueOf(actionStr.replace("-", "_").toUpperCase());
+                if (action == Action.MAP_VALUE) {
+                    log(" Invalid Table: " + actionStr + " (no table given)");
+                    return null;
+                }
                 return new ActionSpec(action, "1");
             } catch (IllegalArgumentException e) {
                 log(" Invalid Action Enum: " + actionStr);
@@ -626,7 +692,7 @@ public class ConfigHandler {
     /**
      * Getter for the config's thread pool size.
      *
-     * @return The {@code configuredPoolSize}.
+     * @return The {@code configuredPoolSize}, or {@code 0} to size the pool by the available processors.
      */
     public int getConfiguredPoolSize() {
         return configuredPoolSize;
@@ -640,4 +706,40 @@ public class ConfigHandler {
     public boolean getPoolingEnabled() {
         return poolingEnabled;
     }
+
+    /**
+     * Getter for the config's executor strategy.
+     *
+     * @return The {@code executorStrategy} used by the pooled processing mode.
+     */
+    public ExecutorStrategy getExecutorStrategy() {
+        return executorStrategy;
+    }
+
+    /**
+     * Getter for the config's line tracing toggle.
+     *
+     * @return The {@code lineTracing} toggle, whether every line's qualifier/action trace is logged.
+     */
+    public boolean getLineTracing() {
+        return lineTracing;
+    }
+
+    /**
+     * Getter for the config's component compilation toggle.
+     *
+     * @return The {@code compileComponents} toggle, whether components are compiled into generated code when loaded.
+     */
+    public boolean getCompileComponents() {
+        return compileComponents;
+    }
+
+    /**
+     * Getter for the config's component optimization toggle.
+     *
+     * @return The {@code optimizeComponents} toggle, whether the {@link ComponentOptimizer} prunes components when loaded.
+     */
+    public boolean getOptimizeComponents() {
+        return optimizeComponents;
+    }
 }
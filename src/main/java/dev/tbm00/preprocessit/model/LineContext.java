@@ -0,0 +1,98 @@
+package dev.tbm00.preprocessit.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import dev.tbm00.preprocessit.model.data.Component;
+import dev.tbm00.preprocessit.model.data.DoublyLinkedList;
+import dev.tbm00.preprocessit.model.data.Node;
+import dev.tbm00.preprocessit.model.data.Token;
+import dev.tbm00.preprocessit.model.matcher.MatcherInterface;
+
+/**
+ * Holds all mutable state of a single line's processing, so that {@link LineProcessor} itself stays stateless.
+ *
+ * <p>A context is owned by one worker at a time and reused for every line that worker processes; {@link #reset(Component)}
+ * prepares it for the next line in constant time (apart from clearing the shipped-slot bitset) without reallocating its
+ * buffers. The log list is the one exception: it is handed off with each {@code LineResult} (and may be read after the
+ * next line has started), so a fresh list is started per line instead of clearing the old one.</p>
+ *
+ * <p>Tracing (the per-line qualifier/action log) is off unless {@link #setTracing(boolean)} turns it on. While it's off,
+ * the log is a shared list that discards everything added to it, and {@code LineProcessor} skips building its trace
+ * messages altogether.</p>
+ */
+public class LineContext {
+    /** Log used while tracing is off: accepts and discards every entry. */
+    private static final List<String> NO_TRACE = new AbstractList<String>() {
+        @Override
+        public boolean add(String entry) {
+            return false;
+        }
+
+        @Override
+        public String get(int index) {
+            throw new IndexOutOfBoundsException("Index: " + index);
+        }
+
+        @Override
+        public int size() {
+            return 0;
+        }
+    };
+
+    boolean tracing;
+    Component component;
+    final DoublyLinkedList<Token> tokenList = new DoublyLinkedList<>();
+    String[] shippedValues = new String[0];
+    final BitSet shippedSlots = new BitSet();
+
+    String INITIAL_LINE_COPY;
+    String INITIAL_TOKEN_COPY;
+    int skip_qualifier;
+    MatcherInterface current_matcher;
+    Node<Token> current_node;
+    Node<Token> sequence_end;
+    String prior_token_value;
+    String prior_working_word;
+    String working_word;
+
+    final StringBuilder leftoverBuilder = new StringBuilder();
+    List<String> log = NO_TRACE;
+
+    /**
+     * Turns the per-line trace log on or off, from the next line on.
+     *
+     * @param tracing Whether to record the qualifier/action trace of each line.
+     */
+    public void setTracing(boolean tracing) {
+        this.tracing = tracing;
+    }
+
+    /**
+     * Clears all per-line state and binds the context to the given component.
+     *
+     * @param component The component the next line will be processed with.
+     */
+    void reset(Component component) {
+        this.component = component;
+        tokenList.clear();
+        int attributeCount = component.getAttributes().size();
+        if (shippedValues.length != attributeCount) shippedValues = new String[attributeCount];
+        shippedSlots.clear();
+
+        INITIAL_LINE_COPY = null;
+        INITIAL_TOKEN_COPY = null;
+        skip_qualifier = 0;
+        current_matcher = null;
+        current_node = null;
+        sequence_end = null;
+        prior_token_value = null;
+        prior_working_word = null;
+        working_word = null;
+
+        leftoverBuilder.setLength(0);
+        log = tracing ? new ArrayList<>() : NO_TRACE;
+    }
+}
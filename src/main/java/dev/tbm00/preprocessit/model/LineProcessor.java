@@ -2,13 +2,13 @@ package dev.tbm00.preprocessit.model;
 
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Map;
-import java.util.HashMap;
+import java.util.BitSet;
 
 import dev.tbm00.preprocessit.model.data.Component;
 import dev.tbm00.preprocessit.model.data.Attribute;
 import dev.tbm00.preprocessit.model.data.Qualifier;
 import dev.tbm00.preprocessit.model.data.Token;
+import dev.tbm00.preprocessit.model.data.TokenPrefilter;
 import dev.tbm00.preprocessit.model.data.Node;
 import dev.tbm00.preprocessit.model.data.DoublyLinkedList;
 import dev.tbm00.preprocessit.model.data.LineRule;
@@ -21,27 +21,29 @@ import dev.tbm00.preprocessit.model.data.enums.WordSpec;
 import dev.tbm00.preprocessit.model.actioneer.ActioneerFactory;
 import dev.tbm00.preprocessit.model.actioneer.ActioneerInterface;
 import dev.tbm00.preprocessit.model.matcher.MatcherInterface;
+import dev.tbm00.preprocessit.model.matcher.TokenSequenceMatch;
+import dev.tbm00.preprocessit.model.matcher.TokenSequenceMatcherInterface;
 
 /**
  * Handles the processing of input data line, by applying lines rules, evaluating tokens 
  * against component attributes' qualifiers and actioning as configured.
+ *
+ * <p>The processor holds no state of its own: everything that changes while a line is processed lives in a
+ * {@link LineContext}, so a single instance can be shared by every worker as long as each passes its own context.</p>
  */
 public class LineProcessor {
-    private Component component;
-    private DoublyLinkedList<Token> tokenList;
-    private Map<String, String> outputAttributes = new HashMap<>();
-
-    private String INITIAL_LINE_COPY;
-    private String INITIAL_TOKEN_COPY;
-    private int skip_qualifier = 0;
-    private MatcherInterface current_matcher = null;
-    private Node<Token> current_node = null;
-    private String prior_token_value = null;
-    private String prior_working_word = null;
-    private String working_word = null;
-
-    private StringBuilder leftoverBuilder = new StringBuilder();
-    private List<String> log = new ArrayList<String>();
+
+    /**
+     * Processes a single input line for the specified component using a fresh {@link LineContext}.
+     *
+     * @param index     The input line's index.
+     * @param inputLine The input line.
+     * @param component The component to process the line with.
+     * @return A {@code LineResult} holding the processed output line and its log.
+     */
+    public LineResult processLine(int index, String inputLine, Component component) {
+        return processLine(index, inputLine, component, new LineContext());
+    }
 
     /**
      * Processes a single input line for the specified component.
@@ -51,88 +53,101 @@ public class LineProcessor {
      * their qualifiers and executing actions, builds the formatted output line, and finally applies all 
      * output {@link LineRule}s to transform the entire line.</p>
      *
-     * @param index The input line's index.
-     * @return A {@code String} representing the processed output line.
+     * <p>The given context is reset first, so a worker can pass the same context for every line it processes.</p>
+     *
+     * @param index     The input line's index.
+     * @param inputLine The input line.
+     * @param component The component to process the line with.
+     * @param ctx       The worker's line context.
+     * @return A {@code LineResult} holding the processed output line and its log.
      */
-    public LineResult processLine(int index, String inputLine, Component component) {
-        this.component = component;
-        log.add(" ");
-        log.add(" ");
-        log.add(" ");
-        log.add("------======||[ Starting Line "+index+" Processing ]||======------");
+    public LineResult processLine(int index, String inputLine, Component component, LineContext ctx) {
+        ctx.reset(component);
+        if (ctx.tracing) {
+            ctx.log.add(" ");
+            ctx.log.add(" ");
+            ctx.log.add(" ");
+            ctx.log.add("------======||[ Starting Line "+index+" Processing ]||======------");
+        }
 
         // Process input LineRules
-        log.add(" ");
-        log.add("Processing inputLineRules for line " +index+ "...");
-        prior_working_word = inputLine;
-        working_word = inputLine;
-        INITIAL_LINE_COPY = inputLine;
-        inputLine = processLineRules(inputLine, "input").trim();
+        if (ctx.tracing) {
+            ctx.log.add(" ");
+            ctx.log.add("Processing inputLineRules for line " +index+ "...");
+        }
+        ctx.prior_working_word = inputLine;
+        ctx.working_word = inputLine;
+        ctx.INITIAL_LINE_COPY = inputLine;
+        inputLine = processLineRules(ctx, inputLine, "input").trim();
         if (inputLine.equals("$DELETE_ME$")) {
-            return new LineResult(index, "", log);
+            return new LineResult(index, "", ctx.log);
         }
 
         // Reset local variables after processing InputLineRules
-        skip_qualifier = 0;
-        current_matcher = null;
-        prior_working_word = null;
-        working_word = null; 
+        ctx.skip_qualifier = 0;
+        ctx.current_matcher = null;
+        ctx.prior_working_word = null;
+        ctx.working_word = null; 
 
         // Process input Attributes
-        log.add(" ");
-        log.add("Processing attributes for line " +index+ "...");
-        tokenList = tokenizeLine(inputLine);
-        outputAttributes.clear();
-        processAttributes();
+        if (ctx.tracing) {
+            ctx.log.add(" ");
+            ctx.log.add("Processing attributes for line " +index+ "...");
+        }
+        tokenizeLine(ctx.tokenList, inputLine);
+        processAttributes(ctx);
         
         // Reset local variables after processing Attributes
-        skip_qualifier = 0;
-        current_matcher = null;
+        ctx.skip_qualifier = 0;
+        ctx.current_matcher = null;
 
         // Generate output Line
-        String outputLine = buildOutputLine();
-        prior_working_word = outputLine;
-        working_word = outputLine;
+        String outputLine = buildOutputLine(ctx);
+        ctx.prior_working_word = outputLine;
+        ctx.working_word = outputLine;
         
         // Process output LineRules
-        log.add(" ");
-        log.add("Processing outputLineRules for line " +index+ "...");
-        outputLine = processLineRules(outputLine, "output");
+        if (ctx.tracing) {
+            ctx.log.add(" ");
+            ctx.log.add("Processing outputLineRules for line " +index+ "...");
+        }
+        outputLine = processLineRules(ctx, outputLine, "output");
         if (outputLine.equals("$DELETE_ME$")) {
             outputLine = "";
         }
 
-        return new LineResult(index, outputLine, log);
+        return new LineResult(index, outputLine, ctx.log);
     }
 
     /**
      * Processes each line rule for the current component on the given token list.
      *
      * <p>This method iterates over all qualifiers for the specified component's LineRules.
-     * It calls {@link #processQualifiers(String, Component, Attribute)} to process the entire line using the qualifiers.</p>
+     * It calls {@link #processQualifiers(LineContext, String, Component, Attribute, int, ArrayList)} to process the entire line using the qualifiers.</p>
      *
-     * @param tokenList The list of tokens generated from a line of input text.
+     * @param ctx The current line's context.
+     * @param line      The line to run the line rules on.
      * @param type      The type of line rules that are running (input/output)
      */
-    private String processLineRules(String line, String type) {
+    private String processLineRules(LineContext ctx, String line, String type) {
         LineRule lineRule;
-        if (type.equals("input")) lineRule = component.getInputLineRule();
-        else if (type.equals("output")) lineRule = component.getOutputLineRule();
+        if (type.equals("input")) lineRule = ctx.component.getInputLineRule();
+        else if (type.equals("output")) lineRule = ctx.component.getOutputLineRule();
         else lineRule = null;
 
         if (lineRule!=null) {
-            ActionResult result = processQualifiers(line, component, null, lineRule.getQualifiers());
+            ActionResult result = processQualifiers(ctx, line, ctx.component, null, -1, lineRule.getQualifiers());
             switch (result) {
                 case REMOVE_LINE:
-                    log.add("[-] "+type+" line rule(s) processed and is deleting the line");
+                    if (ctx.tracing) ctx.log.add("[-] "+type+" line rule(s) processed and is deleting the line");
                     return "$DELETE_ME$";
                 default:
-                    log.add("[-] "+type+" line rule(s) processed, returning: "+ working_word);
-                    return working_word;
+                    if (ctx.tracing) ctx.log.add("[-] "+type+" line rule(s) processed, returning: "+ ctx.working_word);
+                    return ctx.working_word;
             }
             
         } else {
-            log.add("[-] no "+type+" line rule(s) found");
+            if (ctx.tracing) ctx.log.add("[-] no "+type+" line rule(s) found");
             return line;
         }
     }
@@ -141,24 +156,27 @@ public class LineProcessor {
      * Processes each attribute for the current component on the given token list.
      *
      * <p>This method iterates over all attributes of the specified component. For each attribute, it avoids
-     * processing if an output for that attribute is already present. Otherwise, it calls {@link #processAttribute(DoublyLinkedList, Attribute)}
-     * to process individual tokens.</p>
+     * processing if an output for that attribute's slot has already been shipped. Otherwise, it calls
+     * {@link #processAttribute(LineContext, DoublyLinkedList, Component, Attribute, int)} to process individual tokens.</p>
      *
-     * @param tokenList The list of tokens generated from a line of input text.
+     * @param ctx The current line's context, holding the tokens generated from the line of input text.
      */
-    private void processAttributes() {
+    private void processAttributes(LineContext ctx) {
+        Component component = ctx.component;
+
+        ArrayList<Attribute> attributes = component.getAttributes();
 
         attributeLoop:
-        for (Attribute attribute : component.getAttributes()) {
-            if (outputAttributes.containsKey(attribute.getName())) {
+        for (int slot = 0; slot < attributes.size(); slot++) {
+            if (ctx.shippedSlots.get(slot)) {
                 continue;
             }
-            ActionResult result = processAttribute(tokenList, component, attribute);
+            ActionResult result = processAttribute(ctx, ctx.tokenList, component, attributes.get(slot), slot);
             if (result.equals(ActionResult.NEXT_ATTRIBUTE)) {
-                log.add("[-] attribute processed, going to next attribute");
+                ctx.log.add("[-] attribute processed, going to next attribute");
                 continue attributeLoop;
             } else {
-                log.add("[-] attribute processed, going to next line");
+                ctx.log.add("[-] attribute processed, going to next line");
                 return;
             }
         }
@@ -168,57 +186,81 @@ public class LineProcessor {
      * Processes a single attribute by iterating through the token list and applying its qualifiers.
      *
      * <p>This method starts processing at the head of the token list. For each unprocessed token, it applies the attribute's
-     * qualifiers via {@link #processQualifiers(String, Component, Attribute)}. Depending on the result, it either continues to the next token,
+     * qualifiers via {@link #processQualifiers(LineContext, String, Component, Attribute, int, ArrayList)}. Depending on the result, it either continues to the next token,
      * or returns early if processing of the attribute is complete.</p>
      *
+     * @param ctx The current line's context.
      * @param tokenList The list of tokens for the current line.
      * @param component The component whose attributes are being processed.
      * @param attribute The attribute whose qualifiers need to be processed.
+     * @param attributeSlot The attribute's index within the component's attributes.
      * @return An {@code ActionResult} indicating the next processing step.
      */
-    private ActionResult processAttribute(DoublyLinkedList<Token> tokenList, Component component, Attribute attribute) {
-        current_node = tokenList.getHead();
-        prior_token_value = current_node.getData().getValue();
-
-        log.add(" ");
-        log.add(" ");
-        log.add("---===|[ Starting Attribute "+attribute.getName()+" Processing ]|===---");
+    private ActionResult processAttribute(LineContext ctx, DoublyLinkedList<Token> tokenList, Component component, Attribute attribute, int attributeSlot) {
+        ctx.current_node = tokenList.getHead();
+        ctx.prior_token_value = ctx.current_node.getData().getValue();
+
+        if (ctx.tracing) {
+            ctx.log.add(" ");
+            ctx.log.add(" ");
+            ctx.log.add("---===|[ Starting Attribute "+attribute.getName()+" Processing ]|===---");
+        }
         
+        TokenPrefilter prefilter = attribute.getPrefilter();
+        CompiledComponent compiled = component.getCompiled();
+
         tokenLoop:
-        while (current_node != null) {
-            Token token = current_node.getData();
+        while (ctx.current_node != null) {
+            Token token = ctx.current_node.getData();
             if (!token.isProcessed() && !token.getValue().isEmpty()) {
-                INITIAL_TOKEN_COPY = token.getValue();
-                prior_working_word = null;
-                working_word = INITIAL_TOKEN_COPY;
+                // Skip tokens the first qualifier would reject outright (unless a skip is still pending)
+                if (prefilter != null && ctx.skip_qualifier == 0 && !prefilter.mayMatch(token.getValue())) {
+                    if (ctx.tracing) ctx.log.add("[-] attribute prefilter skipped token: " + token.getValue());
+                    ctx.INITIAL_TOKEN_COPY = token.getValue();
+                    ctx.prior_token_value = token.getValue();
+                    ctx.current_node = ctx.current_node.getNext();
+                    continue tokenLoop;
+                }
+
+                ctx.INITIAL_TOKEN_COPY = token.getValue();
+                ctx.prior_working_word = null;
+                ctx.working_word = ctx.INITIAL_TOKEN_COPY;
 
-                // Process each qualifier for the attribute.
-                ActionResult result = processQualifiers(INITIAL_TOKEN_COPY, component, attribute, attribute.getQualifiers());
+                // Process each qualifier for the attribute (with the compiled component's code, unless tracing).
+                ActionResult result = (compiled != null && !ctx.tracing)
+                        ? compiled.runQualifiers(ctx, attributeSlot)
+                        : processQualifiers(ctx, ctx.INITIAL_TOKEN_COPY, component, attribute, attributeSlot, attribute.getQualifiers());
                 if (result.equals(ActionResult.NEXT_TOKEN)) {
-                    prior_token_value = current_node.getData().getValue();
-                    current_node = current_node.getNext();
-                    log.add("[-] attribute continuing tokenLoop");
+                    ctx.prior_token_value = ctx.current_node.getData().getValue();
+                    ctx.current_node = ctx.current_node.getNext();
+                    ctx.log.add("[-] attribute continuing tokenLoop");
                     continue tokenLoop;
                 } else {
-                    prior_token_value = current_node.getData().getValue();
-                    current_node = current_node.getNext();
-                    log.add("[-] attribute bumped the current token to the next neighbor!");
-                    if (current_node != null) log.add("      (bumped to token: "+current_node.getData().getValue()+")");
-                    else log.add("      (bumped token is non-existent!)");
+                    ctx.prior_token_value = ctx.current_node.getData().getValue();
+                    ctx.current_node = ctx.current_node.getNext();
+                    if (ctx.tracing) {
+                        ctx.log.add("[-] attribute bumped the current token to the next neighbor!");
+                        ctx.log.add(ctx.current_node != null ? "      (bumped to token: "+ctx.current_node.getData().getValue()+")"
+                                                             : "      (bumped token is non-existent!)");
+                    }
                     return result;
                 }
             } else {
                 // If token is processed or empty, skip it.
-                prior_token_value = current_node.getData().getValue();
-                current_node = current_node.getNext();
+                ctx.prior_token_value = ctx.current_node.getData().getValue();
+                ctx.current_node = ctx.current_node.getNext();
                 if (token.isProcessed()) {
-                    log.add("[-] attribute bumped the current token to the next neighbor because the current token was already processed!");
-                    if (current_node != null) log.add("      (bumped to token: "+current_node.getData().getValue()+")");
-                    else log.add("      (bumped token is non-existent!)");
+                    if (ctx.tracing) {
+                        ctx.log.add("[-] attribute bumped the current token to the next neighbor because the current token was already processed!");
+                        ctx.log.add(ctx.current_node != null ? "      (bumped to token: "+ctx.current_node.getData().getValue()+")"
+                                                             : "      (bumped token is non-existent!)");
+                    }
                 } else {
-                    log.add("[-] attribute bumped the current token to the next neighbor because the current token was non-existent!");
-                    if (current_node != null) log.add("      (bumped to token: "+current_node.getData().getValue()+")");
-                    else log.add("      (bumped token is non-existent!)");
+                    if (ctx.tracing) {
+                        ctx.log.add("[-] attribute bumped the current token to the next neighbor because the current token was non-existent!");
+                        ctx.log.add(ctx.current_node != null ? "      (bumped to token: "+ctx.current_node.getData().getValue()+")"
+                                                             : "      (bumped token is non-existent!)");
+                    }
                 }
             }
         }
@@ -232,52 +274,57 @@ public class LineProcessor {
      * then obtains a matched string from the qualifier's matcher. Depending on whether a match is found, the method chooses a set
      * of actions to execute. Execution results are used to decide whether to continue with further qualifiers or tokens.</p>
      *
+     * @param ctx The current line's context.
      * @param initialWord The original token value to be evaluated.
      * @param component   The component whose input line rule qualifiers are to be processed.
      * @param attribute   The attribute whose qualifiers are to be processed.
+     * @param attributeSlot The attribute's index within the component's attributes ({@code -1} for line rules).
      * @param qualifiers  The qualifiers to be processed.
      * @return An {@code ActionResult} indicating the next processing step.
      */
-    private ActionResult processQualifiers(String initialWord, Component component, Attribute attribute, ArrayList<Qualifier> qualifiers) {
+    private ActionResult processQualifiers(LineContext ctx, String initialWord, Component component, Attribute attribute, int attributeSlot, ArrayList<Qualifier> qualifiers) {
         boolean isLineRule = (attribute == null);
 
         // For each qualifier in the attribute
         qualifierLoop:
         for (Qualifier qualifier : qualifiers) {
-            if (skip_qualifier > 0) {
-                skip_qualifier--;
+            if (ctx.skip_qualifier > 0) {
+                ctx.skip_qualifier--;
                 continue qualifierLoop;
             }
 
             // Determine which word to use based on the qualifier type.
-            prior_working_word = working_word;
-            working_word = determineWorkingWord(qualifier.getWordSpec());
-            current_matcher = qualifier.getMatcher();
-            String matchedString = current_matcher.match(working_word);
-
-            log.add(" ");
-            if (tokenList!=null) log.add("Current token list: " + tokenList.getForwards());
-            log.add("Starting qualifier...");
-            if (isLineRule) log.add(component.getName()+"'s LineRule's "+qualifier.getWordSpec().toString()+" "+qualifier.getCondition().name()+" '"+qualifier.getValues() +"'  ::  '"+ working_word + "' -> '" + matchedString + "'");
-            else log.add(attribute.getName()+"'s "+qualifier.getWordSpec().toString()+" "+qualifier.getCondition().name()+" '"+qualifier.getValues() +"'  ::  '"+ working_word + "' -> '" + matchedString + "'");
+            ctx.prior_working_word = ctx.working_word;
+            ctx.working_word = determineWorkingWord(ctx, qualifier.getWordSpec());
+            ctx.current_matcher = qualifier.getMatcher();
+            String matchedString = match(ctx, ctx.current_matcher, ctx.working_word,
+                                         !isLineRule && qualifier.getWordSpec().getWord() == Word.WORKING_TOKEN);
+
+            if (ctx.tracing) {
+                ctx.log.add(" ");
+                if (!ctx.tokenList.isEmpty()) ctx.log.add("Current token list: " + ctx.tokenList.getForwards());
+                ctx.log.add("Starting qualifier...");
+                String owner = isLineRule ? component.getName()+"'s LineRule's " : attribute.getName()+"'s ";
+                ctx.log.add(owner+qualifier.getWordSpec().toString()+" "+qualifier.getCondition().name()+" '"+qualifier.getValues() +"'  ::  '"+ ctx.working_word + "' -> '" + matchedString + "'");
+            }
 
             // Decide which set of actions to use
             ActionSpec[] actionSpecs = (matchedString.isEmpty()) ? qualifier.getUnqualifiedActions()
                                                                  : qualifier.getQualifiedActions();
 
             if (!matchedString.isEmpty()) {
-                log.add("[-] therefore qualified actions will run");
-            } else log.add("[-] therefore unqualified actions will run");
+                ctx.log.add("[-] therefore qualified actions will run");
+            } else {
+                ctx.log.add("[-] therefore unqualified actions will run");
+            }
 
             // Execute the actions; if one action “ships” (matches) the attribute then exit.
-            ActionResult result;
-            if (attribute==null) result = executeActions(matchedString, actionSpecs, null);
-            else result = executeActions(matchedString, actionSpecs, attribute.getName());
+            ActionResult result = executeActions(ctx, matchedString, actionSpecs, attributeSlot);
             if (result.equals(ActionResult.NEXT_QUALIFIER)) {
-                log.add("[-] qualifier continuing qualifierLoop");
+                ctx.log.add("[-] qualifier continuing qualifierLoop");
                 continue qualifierLoop;
             } else {
-                //log.add("[-] qualifier returning result: " + result.name());
+                //ctx.log.add("[-] qualifier returning result: " + result.name());
                 return result;
             }
         }
@@ -287,24 +334,25 @@ public class LineProcessor {
     /**
      * Executes all actions for a given qualifier.
      *
-     * <p>This method iterates over an array of action specifications and calls {@link #executeAction(String, ActionSpec, String)}
+     * <p>This method iterates over an array of action specifications and calls {@link #executeAction(LineContext, String, ActionSpec, int)}
      * for each action. Depending on the result from each action, it decides whether to continue with the next action or
      * returns the result immediately.</p>
      *
+     * @param ctx The current line's context.
      * @param matchedString The string matched by the qualifier's matcher.
      * @param actionSpecs   An array of action specifications to execute.
-     * @param attributeName The name of the attribute currently being processed.
+     * @param attributeSlot The index of the attribute currently being processed ({@code -1} for line rules).
      * @return An {@code ActionResult} indicating the next step after executing the actions.
      */
-    private ActionResult executeActions(String matchedString, ActionSpec[] actionSpecs, String attributeName) {
+    private ActionResult executeActions(LineContext ctx, String matchedString, ActionSpec[] actionSpecs, int attributeSlot) {
         executeLoop:
         for (ActionSpec actionSpec : actionSpecs) {
-            ActionResult result = executeAction(matchedString, actionSpec, attributeName);
+            ActionResult result = executeAction(ctx, matchedString, actionSpec, attributeSlot);
             if (result.equals(ActionResult.NEXT_ACTION)) {
-                log.add("[-] action continuing executeLoop");
+                ctx.log.add("[-] action continuing executeLoop");
                 continue executeLoop;
             } else {
-                //log.add("[-] action returning result: " + result.name());
+                //ctx.log.add("[-] action returning result: " + result.name());
                 return result;
             }
         }
@@ -320,22 +368,23 @@ public class LineProcessor {
      * Based on the action executed, the working token is updated, tokens may be marked as processed, and the appropriate
      * {@code ActionResult} is returned.</p>
      *
+     * @param ctx The current line's context.
      * @param matchedString The string that was matched by the qualifier's matcher.
      * @param actionSpec    The specification of the action to be executed.
-     * @param attributeName The name of the attribute associated with the action.
+     * @param attributeSlot The index of the attribute associated with the action ({@code -1} for line rules).
      * @return An {@code ActionResult} indicating the outcome of the action execution.
      */
-    private ActionResult executeAction(String matchedString, ActionSpec actionSpec, String attributeName) {
-        boolean isLineRule = (attributeName == null);
+    ActionResult executeAction(LineContext ctx, String matchedString, ActionSpec actionSpec, int attributeSlot) {
+        boolean isLineRule = (attributeSlot < 0);
         Action action = actionSpec.getAction();
-        log.add("[-] executing action " + action.name() + "...");
+        if (ctx.tracing) ctx.log.add("[-] executing action " + action.name() + "...");
 
         switch (action) {
             case DELETE_LINE:
                 if (isLineRule) {
                     return ActionResult.REMOVE_LINE;
                 } else {
-                    log.add("      (can only use DELETE_LINE in LineRules)");
+                    ctx.log.add("      (can only use DELETE_LINE in LineRules)");
                     return ActionResult.NEXT_ACTION;
                 }
             case EXIT_TO_NEXT_LINE_ITERATION:
@@ -346,7 +395,7 @@ public class LineProcessor {
                     // Exit evaluation for this attribute
                     return ActionResult.NEXT_ATTRIBUTE;
                 } else {
-                    log.add("      (cannot use EXIT_TO_NEXT_ATTRIBUTE_ITERATION in LineRules)");
+                    ctx.log.add("      (cannot use EXIT_TO_NEXT_ATTRIBUTE_ITERATION in LineRules)");
                     return ActionResult.NEXT_ACTION;
                 }
             case EXIT_TO_NEXT_TOKEN_ITERATION:
@@ -354,7 +403,7 @@ public class LineProcessor {
                     // The calling loop will get the next token
                     return ActionResult.NEXT_TOKEN;
                 } else {
-                    log.add("      (cannot use EXIT_TO_NEXT_TOKEN_ITERATION in LineRules)");
+                    ctx.log.add("      (cannot use EXIT_TO_NEXT_TOKEN_ITERATION in LineRules)");
                     return ActionResult.NEXT_ACTION;
                 }
             case CONTINUE_TO_NEXT_QUALIFIER:
@@ -362,45 +411,40 @@ public class LineProcessor {
                 return ActionResult.NEXT_QUALIFIER;
             case CONTINUE_AND_SKIP_NEXT_QUALIFIER:
                 int skipAmount = parsePositiveIntOrDefault(actionSpec.getParameter(), 1);
-                log.add("      (skipping " + skipAmount + " qualifiers)");
-                skip_qualifier = skipAmount;
+                if (ctx.tracing) ctx.log.add("      (skipping " + skipAmount + " qualifiers)");
+                ctx.skip_qualifier = skipAmount;
                 return ActionResult.NEXT_QUALIFIER;
             case SHIP:
-                log.add("      (shipping " + working_word + ")");
+                if (ctx.tracing) ctx.log.add("      (shipping " + ctx.working_word + ")");
                 if (!isLineRule) {
-                    outputAttributes.put(attributeName, working_word);
+                    ctx.shippedValues[attributeSlot] = ctx.working_word;
+                    ctx.shippedSlots.set(attributeSlot);
                 }
                 return ActionResult.NEXT_ACTION;
             case DECLARE_TOKEN_PROCESSED:
                 if (!isLineRule) {
-                    log.add("      (declaring token as processed)");
-                    current_node.getData().setProcessed(true);
+                    ctx.log.add("      (declaring token as processed)");
+                    ctx.current_node.getData().setProcessed(true);
+                    declareSequenceProcessed(ctx);
                     return ActionResult.NEXT_ACTION;
                 } else {
-                    log.add("      (cannot use DECLARE_TOKEN_PROCESSED in LineRules)");
+                    ctx.log.add("      (cannot use DECLARE_TOKEN_PROCESSED in LineRules)");
                     return ActionResult.NEXT_ACTION;
                 }
             case SET_WORKING_WORD: {
-                working_word = actionSpec.getParameter();
+                ctx.working_word = substitutePlaceholders(ctx, actionSpec.getParameter());
 
-                String leftovers = leftoverBuilder.toString().trim();
-                if (INITIAL_TOKEN_COPY!=null) working_word = working_word.replace("$INITIAL_TOKEN_COPY$", INITIAL_TOKEN_COPY);
-                if (INITIAL_LINE_COPY!=null) working_word = working_word.replace("$INITIAL_LINE_COPY$", INITIAL_LINE_COPY);
-                if (leftovers!=null) working_word = working_word.replace("$LEFTOVERS$", leftovers);
-                if (prior_working_word!=null) working_word = working_word.replace("$PRIOR_WORKING_WORD$", prior_working_word);
-                if (prior_token_value!=null) working_word = working_word.replace("$PRIOR_TOKEN_VALUE$", prior_token_value);
-
-                log.add("      (set working word to: "+working_word+")");
+                if (ctx.tracing) ctx.log.add("      (set working word to: "+ctx.working_word+")");
                 return ActionResult.NEXT_ACTION;
             }
             case SET_TOKEN_VALUE: {
                 String newValue = actionSpec.getParameter();
-                current_node.getData().setValue(newValue);
+                ctx.current_node.getData().setValue(newValue);
                 if (newValue==null || newValue.isEmpty() || newValue.equals("")) {
-                    current_node.getData().setProcessed(true);
-                    log.add("      (set token value to: "+actionSpec.getParameter()+" (value is empty, therefore marked as processed))");
+                    ctx.current_node.getData().setProcessed(true);
+                    if (ctx.tracing) ctx.log.add("      (set token value to: "+actionSpec.getParameter()+" (value is empty, therefore marked as processed))");
                 } else {
-                    log.add("      (set token value to: "+actionSpec.getParameter()+")");
+                    if (ctx.tracing) ctx.log.add("      (set token value to: "+actionSpec.getParameter()+")");
                 }
                 return ActionResult.NEXT_ACTION;
             }
@@ -409,7 +453,7 @@ public class LineProcessor {
                     String param = actionSpec.getParameter();
                     String[] parts = param.split(",", 2);
                     if (parts.length < 2) {
-                        log.add("      (trying neighbors failed, invalid parameter format)");
+                        ctx.log.add("      (trying neighbors failed, invalid parameter format)");
                         return ActionResult.NEXT_ACTION;
                     }
 
@@ -417,14 +461,14 @@ public class LineProcessor {
                     Integer nIndex = Integer.valueOf(parts[1]);
                     if (nIndex==null) nIndex = 1;
 
-                    log.add("      (trying neighbors " + nIndex + " away, appending " + distance + " characters from each)");
-                    if (tryNeighbors(distance, attributeName, nIndex)) {
+                    if (ctx.tracing) ctx.log.add("      (trying neighbors " + nIndex + " away, appending " + distance + " characters from each)");
+                    if (tryNeighbors(ctx, distance, attributeSlot, nIndex)) {
                         return ActionResult.NEXT_ACTION;
                     } else {
                         return ActionResult.NEXT_ACTION;
                     }
                 } else {
-                    log.add("      (cannot use TRY_NEIGHBORS in LineRules)");
+                    ctx.log.add("      (cannot use TRY_NEIGHBORS in LineRules)");
                     return ActionResult.NEXT_ACTION;
                 }
             case TRIM_MATCH_FROM_LEFT_NEIGHBOR:
@@ -434,7 +478,7 @@ public class LineProcessor {
                         nIndex = 1;
                     }
 
-                    Node<Token> leftNode = current_node;
+                    Node<Token> leftNode = ctx.current_node;
                     for (int i=0; i<nIndex; ++i) {
                         leftNode = leftNode.getPrior();
                     }
@@ -442,23 +486,23 @@ public class LineProcessor {
                     if (leftNode != null) {
                         ActioneerInterface actioneer = ActioneerFactory.getActioneer(action);
                         if (actioneer != null) {
-                            String newValue = actioneer.execute(leftNode.getData().getValue(), actionSpec, matchedString, log);
+                            String newValue = actioneer.execute(leftNode.getData().getValue(), actionSpec, matchedString, ctx.log);
                             leftNode.getData().setValue(newValue);
                             if (newValue==null || newValue.isEmpty() || newValue.equals("")) {
                                 leftNode.getData().setProcessed(true);
-                                log.add("      (removed match from left neighbor, updated neighbor token: " + newValue + " (value is empty, therefore marked as processed))");
+                                if (ctx.tracing) ctx.log.add("      (removed match from left neighbor, updated neighbor token: " + newValue + " (value is empty, therefore marked as processed))");
                             } else {
-                                log.add("      (removed match from left neighbor, updated neighbor token: " + newValue + ")");
+                                if (ctx.tracing) ctx.log.add("      (removed match from left neighbor, updated neighbor token: " + newValue + ")");
                             }
                         } else {
-                            log.add("      (no executor found for Action." + actionSpec.getAction().name() + ")");
+                            if (ctx.tracing) ctx.log.add("      (no executor found for Action." + actionSpec.getAction().name() + ")");
                         }
                     } else {
-                        log.add("      (left neighbor " + nIndex + " is non-existent!)");
+                        if (ctx.tracing) ctx.log.add("      (left neighbor " + nIndex + " is non-existent!)");
                     }
                     return ActionResult.NEXT_ACTION;
                 } else {
-                    log.add("      (cannot use TRIM_MATCH_FROM_LEFT_NEIGHBOR in LineRules)");
+                    ctx.log.add("      (cannot use TRIM_MATCH_FROM_LEFT_NEIGHBOR in LineRules)");
                     return ActionResult.NEXT_ACTION;
                 }
             case TRIM_MATCH_FROM_RIGHT_NEIGHBOR:
@@ -468,7 +512,7 @@ public class LineProcessor {
                         nIndex = 1;
                     }
 
-                    Node<Token> rightNode = current_node;
+                    Node<Token> rightNode = ctx.current_node;
                     for (int i=0; i<nIndex; ++i) {
                         rightNode = rightNode.getNext();
                     }
@@ -476,146 +520,194 @@ public class LineProcessor {
                     if (rightNode != null) {
                         ActioneerInterface actioneer = ActioneerFactory.getActioneer(action);
                         if (actioneer != null) {
-                            String newValue = actioneer.execute(rightNode.getData().getValue(), actionSpec, matchedString, log);
+                            String newValue = actioneer.execute(rightNode.getData().getValue(), actionSpec, matchedString, ctx.log);
                             rightNode.getData().setValue(newValue);
                             if (newValue==null || newValue.isEmpty() || newValue.equals("")) {
                                 rightNode.getData().setProcessed(true);
-                                log.add("      (removed match from right neighbor, updated neighbor token: " + newValue + " (value is empty, therefore marked as processed))");
+                                if (ctx.tracing) ctx.log.add("      (removed match from right neighbor, updated neighbor token: " + newValue + " (value is empty, therefore marked as processed))");
                             } else {
-                                log.add("      (removed match from right neighbor, updated neighbor token: " + newValue + ")");
+                                if (ctx.tracing) ctx.log.add("      (removed match from right neighbor, updated neighbor token: " + newValue + ")");
                             }
                         } else {
-                            log.add("      (no executor found for Action." + actionSpec.getAction().name() + ")");
+                            if (ctx.tracing) ctx.log.add("      (no executor found for Action." + actionSpec.getAction().name() + ")");
                         }
                     } else {
-                        log.add("      (right neighbor " + nIndex + " is non-existent!)");
+                        if (ctx.tracing) ctx.log.add("      (right neighbor " + nIndex + " is non-existent!)");
                     }
                     return ActionResult.NEXT_ACTION;
                 } else {
-                    log.add("      (cannot use TRIM_MATCH_FROM_RIGHT_NEIGHBOR in LineRules)");
+                    ctx.log.add("      (cannot use TRIM_MATCH_FROM_RIGHT_NEIGHBOR in LineRules)");
                     return ActionResult.NEXT_ACTION;
                 }
             case TRIM_MATCH_FROM_TOKEN:
                 if (!isLineRule) {
-                    if (current_node != null) {
+                    if (ctx.current_node != null) {
                         ActioneerInterface actioneer = ActioneerFactory.getActioneer(action);
                         if (actioneer != null) {
-                            prior_token_value = current_node.getData().getValue();
-                            String newValue = actioneer.execute(current_node.getData().getValue(), actionSpec, matchedString, log);
-                            current_node.getData().setValue(newValue);
+                            ctx.prior_token_value = ctx.current_node.getData().getValue();
+                            String newValue = actioneer.execute(ctx.current_node.getData().getValue(), actionSpec, matchedString, ctx.log);
+                            ctx.current_node.getData().setValue(newValue);
                             if (newValue==null || newValue.isEmpty() || newValue.equals("")) {
-                                current_node.getData().setProcessed(true);
-                                log.add("      (removed match from current token, updated token: " + newValue + " (value is empty, therefore marked as processed))");
+                                ctx.current_node.getData().setProcessed(true);
+                                if (ctx.tracing) ctx.log.add("      (removed match from current token, updated token: " + newValue + " (value is empty, therefore marked as processed))");
                             } else {
-                                log.add("      (removed match from current token, updated token: " + newValue + ")");
+                                if (ctx.tracing) ctx.log.add("      (removed match from current token, updated token: " + newValue + ")");
                             }
                         } else {
-                            log.add("      (no executor found for Action." + actionSpec.getAction().name() + ")");
+                            if (ctx.tracing) ctx.log.add("      (no executor found for Action." + actionSpec.getAction().name() + ")");
                         }
                     }
                     return ActionResult.NEXT_ACTION;
                 } else {
-                    log.add("      (cannot use TRIM_MATCH_FROM_TOKEN in LineRules)");
+                    ctx.log.add("      (cannot use TRIM_MATCH_FROM_TOKEN in LineRules)");
                     return ActionResult.NEXT_ACTION;
                 }
             case TRIM_UNMATCHED_FROM_TOKEN:
                 if (!isLineRule) {
-                    if (current_node != null) {
+                    if (ctx.current_node != null) {
                         ActioneerInterface actioneer = ActioneerFactory.getActioneer(action);
                         if (actioneer != null) {
-                            String unmatchedString = actioneer.execute(working_word, actionSpec, matchedString, log);
+                            String unmatchedString = actioneer.execute(ctx.working_word, actionSpec, matchedString, ctx.log);
                             if (unmatchedString.isEmpty()) {
-                                log.add("      (token was not modified because because unmatched value is empty)");
+                                ctx.log.add("      (token was not modified because because unmatched value is empty)");
                                 return ActionResult.NEXT_ACTION;
                             }
 
-                            prior_token_value = current_node.getData().getValue();
-                            String newValue = actioneer.execute(current_node.getData().getValue(), actionSpec, unmatchedString, log);
-                            current_node.getData().setValue(newValue);
+                            ctx.prior_token_value = ctx.current_node.getData().getValue();
+                            String newValue = actioneer.execute(ctx.current_node.getData().getValue(), actionSpec, unmatchedString, ctx.log);
+                            ctx.current_node.getData().setValue(newValue);
                             if (newValue==null || newValue.isEmpty() || newValue.equals("")) {
-                                current_node.getData().setProcessed(true);
-                                log.add("      (removed unmatched from current token, updated token: " + newValue + " (value is empty, therefore marked as processed))");
+                                ctx.current_node.getData().setProcessed(true);
+                                if (ctx.tracing) ctx.log.add("      (removed unmatched from current token, updated token: " + newValue + " (value is empty, therefore marked as processed))");
                             } else {
-                                log.add("      (removed unmatched from current token, updated token: " + newValue + ")");
+                                if (ctx.tracing) ctx.log.add("      (removed unmatched from current token, updated token: " + newValue + ")");
                             }
                         } else {
-                            log.add("      (no executor found for Action." + actionSpec.getAction().name() + ")");
+                            if (ctx.tracing) ctx.log.add("      (no executor found for Action." + actionSpec.getAction().name() + ")");
                         }
                     }
                     return ActionResult.NEXT_ACTION;
                 } else {
-                    log.add("      (cannot use TRIM_UNMATCHED_FROM_TOKEN in LineRules)");
+                    ctx.log.add("      (cannot use TRIM_UNMATCHED_FROM_TOKEN in LineRules)");
                     return ActionResult.NEXT_ACTION;
                 }
             case NEW_TOKEN_FROM_MATCH:
                 if (!isLineRule) {
                     if (matchedString.isEmpty()) {
-                        log.add("      (no new token created because matched value is empty)");
+                        ctx.log.add("      (no new token created because matched value is empty)");
                         return ActionResult.NEXT_ACTION;
                     }
-                    tokenList.addAfter(current_node, new Token(matchedString));
-                    log.add("      (added new token after current token, matched value: " + matchedString + ")");
+                    ctx.tokenList.addAfter(ctx.current_node, new Token(matchedString));
+                    if (ctx.tracing) ctx.log.add("      (added new token after current token, matched value: " + matchedString + ")");
                     return ActionResult.NEXT_ACTION;
                 } else {
-                    log.add("      (cannot use NEW_TOKEN_FROM_MATCH in LineRules)");
+                    ctx.log.add("      (cannot use NEW_TOKEN_FROM_MATCH in LineRules)");
                     return ActionResult.NEXT_ACTION;
                 }
             case NEW_TOKEN_FROM_UNMATCHED:
                 if (!isLineRule) {
                     ActioneerInterface actioneer = ActioneerFactory.getActioneer(action);
                     if (actioneer != null) {
-                        String unmatchedString = actioneer.execute(working_word, actionSpec, matchedString, log);
+                        String unmatchedString = actioneer.execute(ctx.working_word, actionSpec, matchedString, ctx.log);
                         if (unmatchedString.isEmpty()) {
-                            log.add("      (no new token created because unmatched value is empty)");
+                            ctx.log.add("      (no new token created because unmatched value is empty)");
                             return ActionResult.NEXT_ACTION;
                         }
-                        tokenList.addAfter(current_node, new Token(unmatchedString));
-                        log.add("      (added new token after current token, unmatched value: " + unmatchedString + ")");
+                        ctx.tokenList.addAfter(ctx.current_node, new Token(unmatchedString));
+                        if (ctx.tracing) ctx.log.add("      (added new token after current token, unmatched value: " + unmatchedString + ")");
                     } else {
-                        log.add("      (no executor found for Action.NEW_TOKEN_FROM_UNMATCHED)");
+                        ctx.log.add("      (no executor found for Action.NEW_TOKEN_FROM_UNMATCHED)");
                     }
                     return ActionResult.NEXT_ACTION;
                 } else {
-                    log.add("      (cannot use NEW_TOKEN_FROM_UNMATCHED in LineRules)");
+                    ctx.log.add("      (cannot use NEW_TOKEN_FROM_UNMATCHED in LineRules)");
                     return ActionResult.NEXT_ACTION;
                 }
             default:
                 // For any other action, attempt to execute it
                 ActioneerInterface actioneer = ActioneerFactory.getActioneer(action);
                 if (actioneer != null) {
-                    working_word = actioneer.execute(working_word, actionSpec, matchedString, log);
-
-                    String leftovers = leftoverBuilder.toString().trim();
-                    if (INITIAL_TOKEN_COPY!=null) working_word = working_word.replace("$INITIAL_TOKEN_COPY$", INITIAL_TOKEN_COPY);
-                    if (INITIAL_LINE_COPY!=null) working_word = working_word.replace("$INITIAL_LINE_COPY$", INITIAL_LINE_COPY);
-                    if (leftovers!=null) working_word = working_word.replace("$LEFTOVERS$", leftovers);
-                    if (prior_working_word!=null) working_word = working_word.replace("$PRIOR_WORKING_WORD$", prior_working_word);
-                    if (prior_token_value!=null) working_word = working_word.replace("$PRIOR_TOKEN_VALUE$", prior_token_value);
+                    ctx.working_word = substitutePlaceholders(ctx, actioneer.execute(ctx.working_word, actionSpec, matchedString, ctx.log));
 
-                    log.add("      (updated working word to: " + working_word + ")");
+                    if (ctx.tracing) ctx.log.add("      (updated working word to: " + ctx.working_word + ")");
                 } else {
-                    log.add("      (no executor found for Action." + actionSpec.getAction().name() + ")");
+                    if (ctx.tracing) ctx.log.add("      (no executor found for Action." + actionSpec.getAction().name() + ")");
                 }
                 return ActionResult.NEXT_ACTION;
         }
     }
 
+    /**
+     * Runs a qualifier's matcher on its working word.
+     *
+     * <p>A {@link TokenSequenceMatcherInterface} looking at the working token may match it together with the tokens
+     * after it; the last of those is then remembered, so {@code DECLARE_TOKEN_PROCESSED} declares the whole sequence
+     * processed at once.</p>
+     *
+     * @param ctx     The current line's context.
+     * @param matcher The qualifier's matcher.
+     * @param word    The qualifier's working word.
+     * @param isToken Whether the working word is the working token.
+     * @return The matched string, or {@code ""} if there's no match.
+     */
+    static String match(LineContext ctx, MatcherInterface matcher, String word, boolean isToken) {
+        ctx.sequence_end = null;
+        if (isToken && matcher instanceof TokenSequenceMatcherInterface && ctx.current_node != null) {
+            TokenSequenceMatch match = ((TokenSequenceMatcherInterface) matcher).matchSequence(word, ctx.current_node.getNext());
+            if (match == null) return "";
+            ctx.sequence_end = match.getLast();
+            return match.getMatchedString();
+        }
+        return matcher.match(word);
+    }
+
+    /**
+     * Declares the tokens after the current one that the qualifier's matcher matched along with it processed.
+     *
+     * @param ctx The current line's context.
+     */
+    static void declareSequenceProcessed(LineContext ctx) {
+        if (ctx.sequence_end == null) return;
+        for (Node<Token> node = ctx.current_node.getNext(); node != null; node = node.getNext()) {
+            node.getData().setProcessed(true);
+            if (ctx.tracing) ctx.log.add("      (declaring matched token as processed: " + node.getData().getValue() + ")");
+            if (node == ctx.sequence_end) break;
+        }
+    }
+
+    /**
+     * Replaces the {@code $INITIAL_TOKEN_COPY$}, {@code $INITIAL_LINE_COPY$}, {@code $LEFTOVERS$},
+     * {@code $PRIOR_WORKING_WORD$} and {@code $PRIOR_TOKEN_VALUE$} placeholders in a new working word.
+     *
+     * @param ctx  The current line's context.
+     * @param word The new working word.
+     * @return The word with its placeholders filled in.
+     */
+    static String substitutePlaceholders(LineContext ctx, String word) {
+        String leftovers = ctx.leftoverBuilder.toString().trim();
+        if (ctx.INITIAL_TOKEN_COPY!=null) word = word.replace("$INITIAL_TOKEN_COPY$", ctx.INITIAL_TOKEN_COPY);
+        if (ctx.INITIAL_LINE_COPY!=null) word = word.replace("$INITIAL_LINE_COPY$", ctx.INITIAL_LINE_COPY);
+        if (leftovers!=null) word = word.replace("$LEFTOVERS$", leftovers);
+        if (ctx.prior_working_word!=null) word = word.replace("$PRIOR_WORKING_WORD$", ctx.prior_working_word);
+        if (ctx.prior_token_value!=null) word = word.replace("$PRIOR_TOKEN_VALUE$", ctx.prior_token_value);
+        return word;
+    }
+
     /**
      * Tokenizes an input line into a doubly linked list of tokens.
      *
      * <p>This method splits the given line by whitespace and creates a {@code Token} for each token string.
-     * The tokens are added sequentially to a {@code DoublyLinkedList} which is returned for further processing.</p>
+     * The tokens are appended sequentially to the context's (already cleared) {@code DoublyLinkedList}, reusing
+     * the list instead of allocating a new one per line.</p>
      *
-     * @param line The input line to tokenize.
-     * @return A {@code DoublyLinkedList} of {@code Token} objects extracted from the input line.
+     * @param tokenList The token list to fill.
+     * @param line      The input line to tokenize.
      */
-    private DoublyLinkedList<Token> tokenizeLine(String line) {
-        DoublyLinkedList<Token> tokenList = new DoublyLinkedList<>();
+    private void tokenizeLine(DoublyLinkedList<Token> tokenList, String line) {
         String[] tokenStrings = line.split("\\s+");
         for (String tokenStr : tokenStrings) {
             tokenList.addLast(new Token(tokenStr));
         }
-        return tokenList;
     }
 
     /**
@@ -624,10 +716,11 @@ public class LineProcessor {
      * <p>This method selects the appropriate word to operate on depending on the qualifier type.
      * It may return the current working token, a copy of the initial token, or a value from a neighbor token.</p>
      *
+     * @param ctx The current line's context.
      * @param wordSpec The qualifier word spec indicating which token value to use.
      * @return The token value to be used as the working word.
      */
-    private String determineWorkingWord(WordSpec wordSpec) {
+    private String determineWorkingWord(LineContext ctx, WordSpec wordSpec) {
 
         Integer nIndex = Integer.valueOf(wordSpec.getParameter());
         if (nIndex==null) {
@@ -635,13 +728,13 @@ public class LineProcessor {
         }
 
         if (wordSpec.getWord().equals(Word.WORKING_TOKEN)||wordSpec.getWord().equals(Word.WORKING_LINE)) {
-            return working_word;
+            return ctx.working_word;
         } else if (wordSpec.getWord().equals(Word.INITIAL_TOKEN_COPY)) {
-            return INITIAL_TOKEN_COPY;
+            return ctx.INITIAL_TOKEN_COPY;
         } else if (wordSpec.getWord().equals(Word.INITIAL_LINE_COPY)) {
-            return INITIAL_LINE_COPY;
+            return ctx.INITIAL_LINE_COPY;
         } else if (wordSpec.getWord().equals(Word.LEFT_NEIGHBOR) || wordSpec.getWord().equals(Word.RIGHT_NEIGHBOR)) {
-            Node<Token> leftNode = current_node, rightNode = current_node;
+            Node<Token> leftNode = ctx.current_node, rightNode = ctx.current_node;
             for (int i=0; i<nIndex; ++i) {
                 if (leftNode!=null) leftNode = leftNode.getPrior();
                 if (rightNode!=null) rightNode = rightNode.getNext();
@@ -649,7 +742,7 @@ public class LineProcessor {
             if (wordSpec.getWord().equals(Word.LEFT_NEIGHBOR)) return (leftNode != null) ? leftNode.getData().getValue() : "";
             if (wordSpec.getWord().equals(Word.RIGHT_NEIGHBOR)) return (rightNode != null) ? rightNode.getData().getValue() : "";
         } 
-        return INITIAL_TOKEN_COPY;
+        return ctx.INITIAL_TOKEN_COPY;
     }
 
     
@@ -679,22 +772,23 @@ public class LineProcessor {
      * right neighbor tokens to form a candidate token value that matches using the current matcher.
      * If a match is found, the method returns the updated working word is updated and the method returns {@code true}.</p>
      *
+     * @param ctx The current line's context.
      * @param maxDistance   The maximum number of characters to borrow from neighbor tokens.
-     * @param attributeName The name of the attribute being processed.
-     * @param attributeName The neighbor index to try (1 for first, 2 for second, etc.).
+     * @param attributeSlot The index of the attribute being processed.
+     * @param index         The neighbor index to try (1 for first, 2 for second, etc.).
      * @return {@code true} if a successful match is found by borrowing neighbor characters; {@code false} otherwise.
      */
-    private boolean tryNeighbors(int maxDistance, String attributeName, int index) {
-        Node<Token> leftNode = current_node, rightNode = current_node;
+    private boolean tryNeighbors(LineContext ctx, int maxDistance, int attributeSlot, int index) {
+        Node<Token> leftNode = ctx.current_node, rightNode = ctx.current_node;
         for (int i=0; i<index; ++i) {
             leftNode = leftNode.getPrior();
             rightNode = rightNode.getNext();
         }
         for (int distance = 1; distance <= maxDistance; distance++) {
-            if (tryLeftNeighbor(distance, attributeName, leftNode)) {
+            if (tryLeftNeighbor(ctx, distance, attributeSlot, leftNode)) {
                 return true;
             }
-            if (tryRightNeighbor(distance, attributeName, rightNode)) {
+            if (tryRightNeighbor(ctx, distance, attributeSlot, rightNode)) {
                 return true;
             }
         }
@@ -708,12 +802,13 @@ public class LineProcessor {
      * of characters from the end of the left neighbor, concatenates it with the current working word, and checks if it matches.
      * If matched, the left token is updated accordingly and the candidate is recorded as output for the attribute.</p>
      *
+     * @param ctx The current line's context.
      * @param charDistance  The maximum number of characters to borrow from the left neighbor.
-     * @param attributeName The name of the attribute currently being processed.
+     * @param attributeSlot The index of the attribute currently being processed.
      * @param node The neighboring token node to be tried.
      * @return {@code true} if the neighbor-based candidate forms a valid match; {@code false} otherwise.
      */
-    private boolean tryLeftNeighbor(int charDistance, String attributeName, Node<Token> node) {
+    private boolean tryLeftNeighbor(LineContext ctx, int charDistance, int attributeSlot, Node<Token> node) {
         if (node != null && !node.getData().isProcessed()) {
             String leftValue = node.getData().getValue();
             if (leftValue.isEmpty()) return false;
@@ -721,26 +816,30 @@ public class LineProcessor {
             // Borrow up to charDistance characters from the end of the left token.
             int effectiveDistance = Math.min(charDistance, leftValue.length());
             String neighborPart = leftValue.substring(leftValue.length() - effectiveDistance);
-            String candidate = neighborPart + working_word;
-            String matchResult = current_matcher.match(candidate);
+            String candidate = neighborPart + ctx.working_word;
+            String matchResult = ctx.current_matcher.match(candidate);
             if (!matchResult.isEmpty()) {
-                working_word = candidate;
-                prior_token_value = current_node.getData().getValue();
-                current_node.getData().setValue(candidate);
+                ctx.working_word = candidate;
+                ctx.prior_token_value = ctx.current_node.getData().getValue();
+                ctx.current_node.getData().setValue(candidate);
 
                 String newValue = leftValue.substring(0, (leftValue.length() - effectiveDistance)-1);
                 node.getData().setValue(newValue);
                 if (newValue==null || newValue.isEmpty() || newValue.equals("")) {
                     node.getData().setProcessed(true);
-                    log.add("      (matched with left neighboring token, updated current token: " + candidate);
-                    log.add("                                          , updated neighbor token: " + newValue + " (value is empty, therefore marked as processed) )");
+                    if (ctx.tracing) {
+                        ctx.log.add("      (matched with left neighboring token, updated current token: " + candidate);
+                        ctx.log.add("                                          , updated neighbor token: " + newValue + " (value is empty, therefore marked as processed) )");
+                    }
                 } else {
-                    log.add("      (matched with left neighboring token, updated current token: " + candidate);
-                    log.add("                                          , updated neighbor token: " + newValue + ")");
+                    if (ctx.tracing) {
+                        ctx.log.add("      (matched with left neighboring token, updated current token: " + candidate);
+                        ctx.log.add("                                          , updated neighbor token: " + newValue + ")");
+                    }
                 }
                 return true;
             } else {
-                log.add("      (no match with left neighboring token)");
+                ctx.log.add("      (no match with left neighboring token)");
             }
         }
         return false;
@@ -754,12 +853,13 @@ public class LineProcessor {
      * appends it to the current working word, and validates the candidate using the matcher.
      * If a valid candidate is found, the right token is updated and the candidate is output for the attribute.</p>
      *
+     * @param ctx The current line's context.
      * @param charDistance  The maximum number of characters to borrow from the right neighbor.
-     * @param attributeName The name of the attribute currently being processed.
+     * @param attributeSlot The index of the attribute currently being processed.
      * @param node The neighboring token node to be tried.
      * @return {@code true} if the candidate formed by the right neighbor is valid; {@code false} otherwise.
      */
-    private boolean tryRightNeighbor(int charDistance, String attributeName, Node<Token> node) {
+    private boolean tryRightNeighbor(LineContext ctx, int charDistance, int attributeSlot, Node<Token> node) {
         if (node != null && !node.getData().isProcessed()) {
             String rightValue = node.getData().getValue();
             if (rightValue.isEmpty()) return false;
@@ -767,26 +867,30 @@ public class LineProcessor {
             // Borrow up to charDistance characters from the beginning of the right token
             int effectiveDistance = Math.min(charDistance, rightValue.length());
             String neighborPart = rightValue.substring(0, effectiveDistance);
-            String candidate = working_word + neighborPart;
-            String matchResult = current_matcher.match(candidate);
+            String candidate = ctx.working_word + neighborPart;
+            String matchResult = ctx.current_matcher.match(candidate);
             if (!matchResult.isEmpty()) {
-                working_word = candidate;
-                prior_token_value = current_node.getData().getValue();
-                current_node.getData().setValue(candidate);
+                ctx.working_word = candidate;
+                ctx.prior_token_value = ctx.current_node.getData().getValue();
+                ctx.current_node.getData().setValue(candidate);
 
                 String newValue = rightValue.substring(effectiveDistance, rightValue.length()-1);
                 node.getData().setValue(newValue);
                 if (newValue==null || newValue.isEmpty() || newValue.equals("")) {
                     node.getData().setProcessed(true);
-                    log.add("      (matched with right neighboring token, updated current token: " + candidate);
-                    log.add("                                           , updated neighbor token: " + newValue + " (value is empty, therefore marked as processed) )");
+                    if (ctx.tracing) {
+                        ctx.log.add("      (matched with right neighboring token, updated current token: " + candidate);
+                        ctx.log.add("                                           , updated neighbor token: " + newValue + " (value is empty, therefore marked as processed) )");
+                    }
                 } else {
-                    log.add("      (matched with right neighboring token, updated current token: " + candidate);
-                    log.add("                                           , updated neighbor token: " + newValue + ")");
+                    if (ctx.tracing) {
+                        ctx.log.add("      (matched with right neighboring token, updated current token: " + candidate);
+                        ctx.log.add("                                           , updated neighbor token: " + newValue + ")");
+                    }
                 }
                 return true;
             } else {
-                log.add("      (no match with right neighboring token)");
+                ctx.log.add("      (no match with right neighboring token)");
             }
         }
         return false;
@@ -796,29 +900,32 @@ public class LineProcessor {
      * Builds the final output line from the tokens and attribute order.
      *
      * <p>This method traverses the token list to build leftovers from any tokens that were not processed.
-     * It then builds a formatted line by first appending attribute values (in the order specified by {@code attributeOutputOrder})
-     * then it returns the final output string.</p>
+     * It then builds a formatted line by first appending shipped attribute values (in the order specified by {@code attributeOutputOrder},
+     * pre-resolved to attribute slots) then it returns the final output string.</p>
      *
+     * @param ctx The current line's context.
      * @return A {@code String} representing the final formatted output line.
      */
-    private String buildOutputLine() {
-        List<String> attributeOutputOrder = component.getAttributeOrder();
-        Node<Token> current = tokenList.getHead();
+    private String buildOutputLine(LineContext ctx) {
+        Component component = ctx.component;
+        int[] attributeOutputSlots = component.getAttributeOutputSlots();
+        Node<Token> current = ctx.tokenList.getHead();
         String delimiter = component.getAttributeDelimiter();
         while (current != null) {
             Token token = current.getData();
             if (!token.isProcessed()) {
-                leftoverBuilder.append(token.getValue()).append(" ");
+                ctx.leftoverBuilder.append(token.getValue()).append(" ");
             }
             current = current.getNext();
         }
 
         StringBuilder formattedLine = new StringBuilder();
-        int commasToAdd = attributeOutputOrder.size()-1;
+        int commasToAdd = attributeOutputSlots.length-1;
         int commaCount = 0;
-        for (String attrName : attributeOutputOrder) {
-            String value = outputAttributes.getOrDefault(attrName, "");
-            formattedLine.append(value);
+        for (int slot : attributeOutputSlots) {
+            if (slot >= 0 && ctx.shippedSlots.get(slot)) {
+                formattedLine.append(ctx.shippedValues[slot]);
+            }
             if (commaCount<commasToAdd) {
                 formattedLine.append(delimiter);
                 ++commaCount;
@@ -0,0 +1,120 @@
+package dev.tbm00.preprocessit.model;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import dev.tbm00.preprocessit.model.data.Component;
+import dev.tbm00.preprocessit.model.data.LineResult;
+
+/**
+ * Fork/join task that processes a range of input lines, splitting itself by estimated cost.
+ *
+ * <p>Each line's cost is estimated by its token count, since the qualifier work per line grows with the number of
+ * tokens every attribute has to walk. A range whose estimated cost exceeds the split threshold is divided at its cost
+ * midpoint (not its line midpoint), so a handful of huge lines end up in their own tasks while runs of tiny lines stay
+ * batched together. Idle workers then steal the unstarted halves.</p>
+ */
+class LineRangeTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    /** Minimum estimated cost (in tokens) worth forking for. */
+    private static final long MIN_SPLIT_COST = 256;
+    /** Target number of leaf tasks per worker, to leave room for stealing. */
+    private static final int LEAVES_PER_WORKER = 8;
+
+    private final Component component;
+    private final String[] lines;
+    private final int[] lineNumbers;
+    private final long[] costPrefix;
+    private final LineResult[] results;
+    private final long splitCost;
+    private final boolean tracing;
+    private final int from;
+    private final int to;
+
+    private LineRangeTask(Component component, String[] lines, int[] lineNumbers, long[] costPrefix,
+                          LineResult[] results, long splitCost, boolean tracing, int from, int to) {
+        this.component = component;
+        this.lines = lines;
+        this.lineNumbers = lineNumbers;
+        this.costPrefix = costPrefix;
+        this.results = results;
+        this.splitCost = splitCost;
+        this.tracing = tracing;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Processes the first {@code count} lines of {@code lines} on the given pool.
+     *
+     * @param pool            The fork/join pool to run on.
+     * @param component       The component to process the lines with.
+     * @param lines           The input lines.
+     * @param count           The number of lines to process.
+     * @param lineNumbers     The line number of each of {@code lines}.
+     * @param tracing         Whether to record each line's qualifier/action trace.
+     * @return Each line's {@code LineResult}, in input order.
+     */
+    static LineResult[] process(ForkJoinPool pool, Component component, String[] lines, int count, int[] lineNumbers, boolean tracing) {
+        long[] costPrefix = new long[count + 1];
+        for (int i = 0; i < count; i++) {
+            costPrefix[i + 1] = costPrefix[i] + estimateCost(lines[i]);
+        }
+        long splitCost = Math.max(MIN_SPLIT_COST, costPrefix[count] / ((long) pool.getParallelism() * LEAVES_PER_WORKER));
+
+        LineResult[] results = new LineResult[count];
+        pool.invoke(new LineRangeTask(component, lines, lineNumbers, costPrefix, results, splitCost, tracing, 0, count));
+        return results;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from < 2 || costPrefix[to] - costPrefix[from] <= splitCost) {
+            LineProcessor lineProcessor = new LineProcessor();
+            LineContext ctx = new LineContext();
+            ctx.setTracing(tracing);
+            for (int i = from; i < to; i++) {
+                results[i] = lineProcessor.processLine(lineNumbers[i], lines[i], component, ctx);
+            }
+            return;
+        }
+
+        int mid = costMidpoint();
+        invokeAll(new LineRangeTask(component, lines, lineNumbers, costPrefix, results, splitCost, tracing, from, mid),
+                  new LineRangeTask(component, lines, lineNumbers, costPrefix, results, splitCost, tracing, mid, to));
+    }
+
+    /**
+     * Finds the first split index whose cost prefix reaches half of this range's cost, keeping both halves non-empty.
+     *
+     * @return An index in {@code (from, to)}.
+     */
+    private int costMidpoint() {
+        long target = costPrefix[from] + (costPrefix[to] - costPrefix[from]) / 2;
+        int lo = from + 1, hi = to - 1;
+        while (lo < hi) {
+            int m = (lo + hi) >>> 1;
+            if (costPrefix[m] < target) lo = m + 1;
+            else hi = m;
+        }
+        return lo;
+    }
+
+    /**
+     * Estimates the processing cost of a line as its number of whitespace-separated tokens (at least 1).
+     *
+     * @param line The input line.
+     * @return The estimated cost.
+     */
+    static int estimateCost(String line) {
+        int tokens = 0;
+        boolean inToken = false;
+        for (int i = 0, len = line.length(); i < len; i++) {
+            boolean whitespace = Character.isWhitespace(line.charAt(i));
+            if (!whitespace && !inToken) tokens++;
+            inToken = !whitespace;
+        }
+        return Math.max(1, tokens);
+    }
+}
@@ -1,14 +1,24 @@
 package dev.tbm00.preprocessit.model;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Method;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 
 import dev.tbm00.preprocessit.StaticUtil;
 import dev.tbm00.preprocessit.model.data.Component;
 import dev.tbm00.preprocessit.model.data.LineResult;
+import dev.tbm00.preprocessit.model.data.enums.ExecutorStrategy;
 
 /**
  * Model handles the data & state of the application.
@@ -17,12 +27,41 @@ import dev.tbm00.preprocessit.model.data.LineResult;
  * input text, and the output text. It supports processing of the input data either sequentially or concurrently.</p>
  */
 public class Model {
+    private static final int STREAM_BATCH_SIZE = 1024;
+    /** The line output cache is cleared once it grows past this many distinct lines. */
+    private static final int OUTPUT_CACHE_LIMIT = 1 << 20;
+    /** Per-thread line context for pooled workers, so each worker reuses its buffers across lines. */
+    private static final ThreadLocal<LineContext> WORKER_CONTEXT = ThreadLocal.withInitial(LineContext::new);
+    /** Stateless and therefore shared by every sequential run and pooled worker. */
+    private static final LineProcessor LINE_PROCESSOR = new LineProcessor();
+
     private static ConfigHandler configHandler;
     private List<Component> components;
     private Component selectedComponent;
     private String inputText;
     private String outputText;
 
+    // Output of each distinct input line, valid for outputCacheComponent at outputCacheVersion
+    private final Map<String, String> outputCache = new HashMap<>();
+    private Component outputCacheComponent;
+    private int outputCacheVersion;
+    private int configVersion;
+    private boolean tracingForced;
+    private ResultStore resultStore;
+
+    /**
+     * Receives progress callbacks from {@link #processStream(BufferedReader, Writer, BatchListener)}.
+     */
+    public interface BatchListener {
+        /**
+         * Called on the processing thread after each batch has been written and the writer flushed.
+         *
+         * @param linesProcessed The total number of input lines processed so far.
+         * @return {@code true} to continue with the next batch, {@code false} to stop processing.
+         */
+        boolean batchWritten(long linesProcessed);
+    }
+
     /**
      * Constructs a new Model instance.
      *
@@ -55,7 +94,7 @@ public class Model {
      * Processes input data sequentially, line by line.
      *
      * <p>This method retrieves the selected component and splits the input text into individual lines.
-     * Each line is processed using a {@code LineProcessor} instance, and the processed lines are concatenated
+     * Each line is processed by the shared {@code LineProcessor} with a single reused {@link LineContext}, and the processed lines are concatenated
      * with line breaks to form the final output text.</p>
      *
      * @return A {@code String} representing the processed output text.
@@ -65,29 +104,21 @@ public class Model {
         if (component == null || component.getAttributes() == null) return "";
 
         String[] lines = getInputText().split("\\r?\\n");
-        StringBuilder newOutput = new StringBuilder();
-        LineProcessor lineProcessor = new LineProcessor();
+        String[] outputs = processBatchSequential(component, lines, lines.length, lineNumbers(1, lines.length), newContext());
 
-        // Process each line
-        for (int i = 0; i < lines.length; i++) {
-            LineResult result = lineProcessor.processLine(i+1, lines[i], component);
-            if (result.output!=null) {
-                if (!result.output.equals("") && !result.output.isEmpty() && !result.output.equals("null"))
-                    newOutput.append(result.output).append("\n");
-            }
-            for (String line : result.log) {
-                StaticUtil.log(line);
-            }
+        StringBuilder newOutput = new StringBuilder();
+        for (String outputLine : outputs) {
+            if (isOutputLine(outputLine))
+                newOutput.append(outputLine).append("\n");
         }
-
         return newOutput.toString();
     }
 
     /**
      * Processes input data concurrently using a thread pool.
      *
-     * <p>This method retrieves the selected component and determines the thread pool size based on the available processors
-     * or a configured pool size. It then processes each input line concurrently by submitting tasks to an executor service.
+     * <p>This method retrieves the selected component and builds an executor for the configured strategy (see
+     * {@link #newExecutor()}). It then processes each input line concurrently by submitting tasks to the executor service.
      * Once processing is complete, the results are reassembled in the original order to create the final output text.
      * If any exceptions are encountered during processing, they are logged.</p>
      *
@@ -97,37 +128,297 @@ public class Model {
         Component component = getSelectedComponent();
         if (component == null || component.getAttributes() == null) return "";
 
-        // Build thread pool
-        int availableProcessors  = Runtime.getRuntime().availableProcessors();
-        int poolSize = availableProcessors;
-        if (configHandler.getConfiguredPoolSize() > 0) {
-            poolSize = Math.max(availableProcessors, configHandler.getConfiguredPoolSize());
+        ExecutorService executor = newExecutor();
+        String[] lines = getInputText().split("\\r?\\n");
+        String[] outputs;
+        try {
+            outputs = processBatchConcurrent(component, lines, lines.length, lineNumbers(1, lines.length), executor);
+        } finally {
+            // Shutdown executor service
+            executor.shutdown();
         }
-        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
-        List<Future<LineResult>> futureList = new ArrayList<>();
 
-        String[] lines = getInputText().split("\\r?\\n");
+        // Build and return final string
+        StringBuilder newOutput = new StringBuilder();
+        for (String outputLine : outputs) {
+            if (isOutputLine(outputLine)) {
+                newOutput.append(outputLine).append("\n");
+            }
+        }
+        return newOutput.toString().trim();
+    }
+
+    /**
+     * Processes a stream of input lines, writing each output line as soon as its batch completes.
+     *
+     * <p>Lines are read in batches of up to {@link #STREAM_BATCH_SIZE}; a batch is cut short whenever the reader has
+     * no more buffered input, so slow producers (e.g. a pipe) still see their lines processed promptly. Each batch is
+     * processed sequentially or on a thread pool depending on the configured pooling mode, written in the original
+     * order, and the writer is flushed after every batch. Neither the input nor the output is ever held in memory
+     * as a whole.</p>
+     *
+     * <p>With a {@link #setResultStore(ResultStore) result store} set, only the lines of a batch the store doesn't
+     * have are processed, and their results are added to it.</p>
+     *
+     * @param reader The reader supplying input lines.
+     * @param writer The writer receiving output lines, each terminated with a line break.
+     * @throws IOException if reading the input or writing the output fails.
+     */
+    public void processStream(BufferedReader reader, Writer writer) throws IOException {
+        processStream(reader, writer, null);
+    }
+
+    /**
+     * Processes a stream of input lines like {@link #processStream(BufferedReader, Writer)}, reporting progress to
+     * the given listener after every batch.
+     *
+     * <p>If the listener returns {@code false}, processing stops after the batch that was just written, leaving the
+     * output holding every line processed up to that point.</p>
+     *
+     * @param reader   The reader supplying input lines.
+     * @param writer   The writer receiving output lines, each terminated with a line break.
+     * @param listener The listener to notify after each batch, or {@code null}.
+     * @throws IOException if reading the input or writing the output fails.
+     */
+    public void processStream(BufferedReader reader, Writer writer, BatchListener listener) throws IOException {
+        processStream(reader, writer, listener, configHandler.getPoolingEnabled());
+    }
+
+    /**
+     * Processes a stream of input lines like {@link #processStream(BufferedReader, Writer)}, but always sequentially
+     * on the calling thread, whatever the configured pooling mode.
+     *
+     * <p>Meant for callers that process several streams at once on their own pool, so that each stream doesn't
+     * start a pool of its own. Concurrent calls are safe as long as the config isn't reloaded meanwhile.</p>
+     *
+     * @param reader The reader supplying input lines.
+     * @param writer The writer receiving output lines, each terminated with a line break.
+     * @throws IOException if reading the input or writing the output fails.
+     */
+    public void processStreamSequential(BufferedReader reader, Writer writer) throws IOException {
+        processStream(reader, writer, null, false);
+    }
+
+    private void processStream(BufferedReader reader, Writer writer, BatchListener listener, boolean pooled) throws IOException {
+        Component component = getSelectedComponent();
+        if (component == null || component.getAttributes() == null) return;
+
+        ExecutorService executor = pooled ? newExecutor() : null;
+        LineContext ctx = (executor == null) ? newContext() : null;
+        // traces have to be produced, so the store can't serve lines while tracing
+        ResultStore store = isTracing() ? null : resultStore;
+        String[] batch = new String[STREAM_BATCH_SIZE];
+        int[] batchLineNumbers = new int[STREAM_BATCH_SIZE];
+        String[] misses = (store != null) ? new String[STREAM_BATCH_SIZE] : null;
+        int[] missIndexes = (store != null) ? new int[STREAM_BATCH_SIZE] : null;
+        int lineNumber = 1;
+        try {
+            int count;
+            while ((count = readBatch(reader, batch)) > 0) {
+                for (int i = 0; i < count; i++) {
+                    batchLineNumbers[i] = lineNumber + i;
+                }
+                String[] outputs;
+                if (store == null) {
+                    outputs = (executor != null)
+                            ? processBatchConcurrent(component, batch, count, batchLineNumbers, executor)
+                            : processBatchSequential(component, batch, count, batchLineNumbers, ctx);
+                } else {
+                    // only process the lines the store doesn't have, then add their results to it
+                    outputs = new String[count];
+                    boolean[] found = store.lookup(batch, count, outputs);
+                    int missCount = 0;
+                    for (int i = 0; i < count; i++) {
+                        if (found[i]) continue;
+                        missIndexes[missCount] = i;
+                        batchLineNumbers[missCount] = lineNumber + i;
+                        misses[missCount++] = batch[i];
+                    }
+                    if (missCount > 0) {
+                        String[] missOutputs = (executor != null)
+                                ? processBatchConcurrent(component, misses, missCount, batchLineNumbers, executor)
+                                : processBatchSequential(component, misses, missCount, batchLineNumbers, ctx);
+                        for (int i = 0; i < missCount; i++) {
+                            outputs[missIndexes[i]] = missOutputs[i];
+                        }
+                        store.add(misses, missOutputs, missCount);
+                    }
+                }
+                for (String outputLine : outputs) {
+                    if (isOutputLine(outputLine)) {
+                        writer.write(outputLine);
+                        writer.write('\n');
+                    }
+                }
+                writer.flush();
+                lineNumber += count;
+                if (listener != null && !listener.batchWritten(lineNumber - 1)) break;
+            }
+        } finally {
+            if (executor != null) executor.shutdown();
+        }
+    }
+
+    /**
+     * Processes {@code lines} into {@code outputs} (one entry per input line), reusing earlier results for line
+     * contents seen before with the same component and config.
+     *
+     * <p>Output is purely a function of a line's content, so every distinct line is processed at most once per
+     * config: only lines missing from the cache are run through the {@code LineProcessor} (sequentially or on a
+     * thread pool, depending on the configured pooling mode). This makes reprocessing a lightly edited input cost
+     * roughly as much as processing just its edited lines.</p>
+     *
+     * <p>Lines are handled in batches, with {@code listener} notified after each; entries of lines that produce no
+     * output (see {@link #processStream(BufferedReader, Writer)}) are left {@code null}.</p>
+     *
+     * @param lines           The input lines.
+     * @param outputs         The array to fill with each line's output, at least as long as {@code lines}.
+     * @param firstLineNumber The line number of {@code lines[0]} (for logging).
+     * @param listener        The listener to notify after each batch, or {@code null}.
+     * @return The number of lines processed, less than {@code lines.length} if the listener stopped processing.
+     */
+    public int processLines(String[] lines, String[] outputs, int firstLineNumber, BatchListener listener) {
+        Component component = getSelectedComponent();
+        if (component == null || component.getAttributes() == null) return 0;
+        if (component != outputCacheComponent || configVersion != outputCacheVersion || outputCache.size() > OUTPUT_CACHE_LIMIT) {
+            outputCache.clear();
+            outputCacheComponent = component;
+            outputCacheVersion = configVersion;
+        }
+
+        ExecutorService executor = null;
+        LineContext ctx = newContext();
+        String[] misses = new String[STREAM_BATCH_SIZE];
+        int[] missLineNumbers = new int[STREAM_BATCH_SIZE];
+        int done = 0;
+        try {
+            while (done < lines.length) {
+                int count = Math.min(STREAM_BATCH_SIZE, lines.length - done);
+
+                // Collect the batch's uncached lines (each distinct line once)
+                Set<String> batchMisses = new HashSet<>();
+                int missCount = 0;
+                for (int i = done; i < done + count; i++) {
+                    if (!outputCache.containsKey(lines[i]) && batchMisses.add(lines[i])) {
+                        misses[missCount] = lines[i];
+                        missLineNumbers[missCount++] = firstLineNumber + i;
+                    }
+                }
+
+                // Process them, only starting a pool once there's something to process
+                if (missCount > 0) {
+                    String[] missOutputs;
+                    if (configHandler.getPoolingEnabled()) {
+                        if (executor == null) executor = newExecutor();
+                        missOutputs = processBatchConcurrent(component, misses, missCount, missLineNumbers, executor);
+                    } else {
+                        missOutputs = processBatchSequential(component, misses, missCount, missLineNumbers, ctx);
+                    }
+                    for (int m = 0; m < missCount; m++) {
+                        outputCache.put(misses[m], isOutputLine(missOutputs[m]) ? missOutputs[m] : null);
+                    }
+                }
+
+                for (int i = done; i < done + count; i++) {
+                    outputs[i] = outputCache.get(lines[i]);
+                }
+                done += count;
+                if (listener != null && !listener.batchWritten(done)) break;
+            }
+        } finally {
+            if (executor != null) executor.shutdown();
+        }
+        return done;
+    }
+
+    /**
+     * Reads up to {@code batch.length} lines into {@code batch}.
+     *
+     * <p>Stops early once at least one line has been read and the reader reports that reading further
+     * would block.</p>
+     *
+     * @param reader The reader supplying input lines.
+     * @param batch  The array to fill.
+     * @return The number of lines read, or {@code 0} at the end of the stream.
+     * @throws IOException if reading fails.
+     */
+    private int readBatch(BufferedReader reader, String[] batch) throws IOException {
+        int count = 0;
+        while (count < batch.length) {
+            String line = reader.readLine();
+            if (line == null) break;
+            batch[count++] = line;
+            if (!reader.ready()) break;
+        }
+        return count;
+    }
+
+    /**
+     * Processes the first {@code count} lines of {@code lines} one after another on the calling thread.
+     *
+     * @param component       The component to process the lines with.
+     * @param lines           The input lines.
+     * @param count           The number of lines to process.
+     * @param lineNumbers     The line number of each of {@code lines}.
+     * @param ctx             The line context to reuse for every line.
+     * @return An array holding each line's output (or {@code null}), in input order.
+     */
+    private String[] processBatchSequential(Component component, String[] lines, int count, int[] lineNumbers, LineContext ctx) {
+        String[] outputs = new String[count];
 
         // Process each line
-        for (int i = 0; i < lines.length; i++) {
-            final int lineNumber = i + 1;
+        for (int i = 0; i < count; i++) {
+            LineResult result = LINE_PROCESSOR.processLine(lineNumbers[i], lines[i], component, ctx);
+            outputs[i] = result.output;
+            for (String line : result.log) {
+                StaticUtil.log(line);
+            }
+        }
+        return outputs;
+    }
+
+    /**
+     * Processes the first {@code count} lines of {@code lines} as individual tasks on {@code executor}.
+     *
+     * <p>Results are collected in the original order; if any exceptions are encountered while collecting,
+     * they are logged and the remaining outputs are left {@code null}.</p>
+     *
+     * @param component       The component to process the lines with.
+     * @param lines           The input lines.
+     * @param count           The number of lines to process.
+     * @param lineNumbers     The line number of each of {@code lines}.
+     * @param executor        The executor to submit the line tasks to.
+     * @return An array holding each line's output (or {@code null}), in input order.
+     */
+    private String[] processBatchConcurrent(Component component, String[] lines, int count, int[] lineNumbers, ExecutorService executor) {
+        if (executor instanceof ForkJoinPool && configHandler.getExecutorStrategy() == ExecutorStrategy.FORK_JOIN) {
+            return processBatchForkJoin(component, lines, count, lineNumbers, (ForkJoinPool) executor);
+        }
+
+        List<Future<LineResult>> futureList = new ArrayList<>(count);
+        final boolean tracing = isTracing();
+
+        // Process each line
+        for (int i = 0; i < count; i++) {
+            final int lineNumber = lineNumbers[i];
             final String line = lines[i];
 
             // Submit future task that processes one line
             Future<LineResult> future = executor.submit(() -> {
-                LineProcessor lineProcessor = new LineProcessor();
-                return lineProcessor.processLine(lineNumber, line, component);
+                LineContext ctx = WORKER_CONTEXT.get();
+                ctx.setTracing(tracing);
+                return LINE_PROCESSOR.processLine(lineNumber, line, component, ctx);
             });
             futureList.add(future);
         }
 
         // Prepare output with original order
-        String[] outputs = new String[lines.length];
+        String[] outputs = new String[count];
         try {
-            for (Future<LineResult> future : futureList) {
-                LineResult result = future.get();
+            for (int i = 0; i < count; i++) {
+                LineResult result = futureList.get(i).get();
                 if (result.output!=null) {
-                    outputs[result.lineNumber - 1] = result.output;
+                    outputs[i] = result.output;
                 }
                 for (String line : result.log) {
                     StaticUtil.log(line);
@@ -137,18 +428,177 @@ public class Model {
             StaticUtil.log("Exception throw when preparing output!");
             e.printStackTrace();
         }
+        return outputs;
+    }
 
-        // Shutdown executor service
-        executor.shutdown();
-
-        // Build and return final string
-        StringBuilder newOutput = new StringBuilder();
-        for (String outputLine : outputs) {
-            if (outputLine != null && !outputLine.equals(null) && !outputLine.equals("null") && !outputLine.isEmpty() && !outputLine.equals("")) {
-                newOutput.append(outputLine).append("\n");
+    /**
+     * Processes the first {@code count} lines of {@code lines} with a {@link LineRangeTask}, which splits the batch
+     * into line ranges of roughly equal estimated cost and lets idle workers steal them.
+     *
+     * @param component       The component to process the lines with.
+     * @param lines           The input lines.
+     * @param count           The number of lines to process.
+     * @param lineNumbers     The line number of each of {@code lines}.
+     * @param pool            The fork/join pool to run the range tasks on.
+     * @return An array holding each line's output (or {@code null}), in input order.
+     */
+    private String[] processBatchForkJoin(Component component, String[] lines, int count, int[] lineNumbers, ForkJoinPool pool) {
+        String[] outputs = new String[count];
+        try {
+            LineResult[] results = LineRangeTask.process(pool, component, lines, count, lineNumbers, isTracing());
+            for (int i = 0; i < count; i++) {
+                outputs[i] = results[i].output;
+                for (String line : results[i].log) {
+                    StaticUtil.log(line);
+                }
             }
+        } catch (Exception e) {
+            StaticUtil.log("Exception throw when preparing output!");
+            e.printStackTrace();
         }
-        return newOutput.toString().trim();
+        return outputs;
+    }
+
+    /**
+     * Builds the executor used by the pooled processing mode, according to the configured strategy.
+     *
+     * <p>The pool size is the configured pool size when one is set, otherwise the number of available processors.
+     * {@code FIXED} builds a fixed thread pool, {@code WORK_STEALING} and {@code FORK_JOIN} a {@code ForkJoinPool} of that
+     * parallelism (the latter processed with cost-split {@link LineRangeTask}s instead of one task per line), and
+     * {@code VIRTUAL} a virtual-thread-per-task executor. Virtual threads are looked up at runtime so the project
+     * keeps targeting Java 8; on runtimes without them, a fixed thread pool is used instead.</p>
+     *
+     * @return A new {@code ExecutorService}.
+     */
+    private ExecutorService newExecutor() {
+        int poolSize = configHandler.getConfiguredPoolSize();
+        if (poolSize <= 0) {
+            poolSize = Runtime.getRuntime().availableProcessors();
+        }
+
+        switch (configHandler.getExecutorStrategy()) {
+            case WORK_STEALING:
+            case FORK_JOIN:
+                return new ForkJoinPool(poolSize);
+            case VIRTUAL:
+                ExecutorService virtualExecutor = newVirtualThreadExecutor();
+                if (virtualExecutor != null) return virtualExecutor;
+                StaticUtil.log("Virtual threads are not supported by this runtime, using a fixed thread pool");
+                return Executors.newFixedThreadPool(poolSize);
+            case FIXED:
+            default:
+                return Executors.newFixedThreadPool(poolSize);
+        }
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor via reflection.
+     *
+     * @return The executor, or {@code null} if the runtime does not support virtual threads.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Re-runs a single input line with tracing on and formats its qualifier/action trace.
+     *
+     * <p>This is how a line's output is explained on demand, so that normal runs can leave tracing off.</p>
+     *
+     * @param lineNumber The line's number in the input.
+     * @param line       The input line.
+     * @return The trace, framed by the input line and its resulting output.
+     */
+    public String explainLine(int lineNumber, String line) {
+        Component component = getSelectedComponent();
+        if (component == null || component.getAttributes() == null) return "No component selected";
+
+        LineContext ctx = new LineContext();
+        ctx.setTracing(true);
+        LineResult result = LINE_PROCESSOR.processLine(lineNumber, line, component, ctx);
+
+        StringBuilder explanation = new StringBuilder();
+        explanation.append("==== Line ").append(lineNumber).append(": ").append(line).append('\n');
+        for (String entry : result.log) {
+            explanation.append(entry).append('\n');
+        }
+        explanation.append("==== Output: ").append(isOutputLine(result.output) ? result.output : "(none, line removed)").append('\n');
+        return explanation.toString();
+    }
+
+    /**
+     * Whether lines are processed with their qualifier/action trace logged, either because the config's
+     * {@code lineTracing} is on or because it was forced on with {@link #setTracingForced(boolean)}.
+     *
+     * @return {@code true} if tracing is on.
+     */
+    public boolean isTracing() {
+        return tracingForced || configHandler.getLineTracing();
+    }
+
+    /**
+     * Forces tracing on regardless of the config (e.g. for the CLI's {@code --log}).
+     *
+     * @param tracingForced Whether to force tracing on.
+     */
+    public void setTracingForced(boolean tracingForced) {
+        this.tracingForced = tracingForced;
+    }
+
+    // Create a line context with the current tracing setting
+    private LineContext newContext() {
+        LineContext ctx = new LineContext();
+        ctx.setTracing(isTracing());
+        return ctx;
+    }
+
+    /**
+     * Builds the line numbers {@code first, first + 1, ...} for {@code count} consecutive lines.
+     *
+     * @param first The first line number.
+     * @param count The number of lines.
+     * @return The line numbers.
+     */
+    private static int[] lineNumbers(int first, int count) {
+        int[] lineNumbers = new int[count];
+        for (int i = 0; i < count; i++) {
+            lineNumbers[i] = first + i;
+        }
+        return lineNumbers;
+    }
+
+    /**
+     * Checks whether a processed line should be written to the output.
+     *
+     * @param outputLine The processed line.
+     * @return {@code true} if the line is non-null, non-empty and not the literal {@code "null"}.
+     */
+    private static boolean isOutputLine(String outputLine) {
+        return outputLine != null && !outputLine.isEmpty() && !outputLine.equals("null");
+    }
+
+    /**
+     * Getter for the persistent result store used when streaming.
+     *
+     * @return The {@code ResultStore}, or {@code null} if none is set.
+     */
+    public ResultStore getResultStore() {
+        return resultStore;
+    }
+
+    /**
+     * Sets a persistent result store for {@link #processStream(BufferedReader, Writer)} (and its variants) to serve
+     * lines processed by earlier runs from, and to add newly processed lines to. While tracing, the store isn't used.
+     *
+     * @param resultStore The {@code ResultStore}, or {@code null} for none.
+     */
+    public void setResultStore(ResultStore resultStore) {
+        this.resultStore = resultStore;
     }
 
     /**
@@ -190,6 +640,7 @@ public class Model {
      */
     public void clearComponents() {
         components.clear();
+        configVersion++;
     }
 
     /**
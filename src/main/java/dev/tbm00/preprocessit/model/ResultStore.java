@@ -0,0 +1,439 @@
+package dev.tbm00.preprocessit.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import dev.tbm00.preprocessit.StaticUtil;
+
+/**
+ * An on-disk store of line outputs, keyed by config fingerprint and input line, that persists across runs.
+ *
+ * <p>Results are appended to a log file ({@value #LOG_FILE}), each record holding the config fingerprint, the
+ * input line and its output. An in-memory open-addressing hash table maps a 64-bit hash of fingerprint and line to
+ * the record's offset, and a hit is only served after the record's fingerprint and line are compared with the
+ * lookup's, so hash collisions can never return a wrong output. The table is saved to an index file
+ * ({@value #INDEX_FILE}) on {@link #close()}; on open it's loaded and only the log written after it is scanned (all of
+ * it if the index is missing or belongs to another log), and a record cut off by a crash is dropped.</p>
+ *
+ * <p>The log is bounded: once it reaches the maximum size no more results are added, and on close an oversized log
+ * is compacted down to the records looked up or added during this run, dropping results of lines (and configs) no
+ * longer seen. Methods are synchronized, so one store can serve several streams at once.</p>
+ */
+public class ResultStore {
+
+    /** Name of the log file within the store directory. */
+    public static final String LOG_FILE = "results.log";
+
+    /** Name of the index file within the store directory. */
+    public static final String INDEX_FILE = "results.idx";
+
+    private static final long LOG_MAGIC = 0x5050495452534c47L;   // "PPITRSLG"
+    private static final long INDEX_MAGIC = 0x5050495452534958L; // "PPITRSIX"
+    private static final int LOG_HEADER_SIZE = 16;
+    /** Bytes of a record before its line: record length, fingerprint, line length. */
+    private static final int RECORD_HEADER_SIZE = 16;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    private final Path logPath;
+    private final Path indexPath;
+    private final long fingerprint;
+    private final long maxBytes;
+
+    private FileChannel channel;
+    private DataOutputStream appender;
+    private long logId;
+    private long logLength;
+    private long flushedLength;
+    private ByteBuffer readBuffer = ByteBuffer.allocate(512);
+
+    // Open-addressing table of record hash -> record offset; hash 0 marks an empty slot
+    private long[] hashes = new long[INITIAL_CAPACITY];
+    private long[] offsets = new long[INITIAL_CAPACITY];
+    private boolean[] touched = new boolean[INITIAL_CAPACITY];
+    private int size;
+
+    private long hits;
+    private boolean closed;
+    private long misses;
+
+    /**
+     * Opens (or creates) the store in the given directory for one config.
+     *
+     * @param dir         the store directory, created if needed
+     * @param fingerprint the config fingerprint (see {@link StaticUtil#configFingerprint}); results of other
+     *                    fingerprints in the store are kept but never returned
+     * @param maxBytes    the size the log may grow to
+     * @throws IOException if the store can't be read or created
+     */
+    public ResultStore(Path dir, String fingerprint, long maxBytes) throws IOException {
+        Files.createDirectories(dir);
+        this.logPath = dir.resolve(LOG_FILE);
+        this.indexPath = dir.resolve(INDEX_FILE);
+        this.fingerprint = parseFingerprint(fingerprint);
+        this.maxBytes = maxBytes;
+
+        if (!Files.exists(logPath) || Files.size(logPath) < LOG_HEADER_SIZE) createLog(logPath, new Random().nextLong());
+        channel = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+        channel.read(header, 0);
+        header.flip();
+        if (header.getLong() != LOG_MAGIC) throw new IOException("Not a result store log: " + logPath);
+        logId = header.getLong();
+
+        long scanFrom = loadIndex();
+        logLength = scan(scanFrom);
+        // drop a record cut off by a crash
+        if (logLength < channel.size()) channel.truncate(logLength);
+        flushedLength = logLength;
+        appender = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logPath.toFile(), true), 1 << 16));
+        StaticUtil.log("Result store " + dir + ": " + size + " results, " + logLength + " bytes");
+    }
+
+    /**
+     * Looks up the outputs of a batch of lines.
+     *
+     * @param lines   the input lines
+     * @param count   the number of lines to look up
+     * @param outputs receives the output of each line that was found
+     * @return which lines were found
+     * @throws IOException if the log can't be read
+     */
+    public synchronized boolean[] lookup(String[] lines, int count, String[] outputs) throws IOException {
+        boolean[] found = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            byte[] line = lines[i].getBytes(StandardCharsets.UTF_8);
+            long hash = hash(line);
+            for (int slot = slot(hash); hashes[slot] != 0; slot = (slot + 1) & (hashes.length - 1)) {
+                if (hashes[slot] != hash) continue;
+                ByteBuffer record = readRecord(offsets[slot]);
+                if (!matches(record, line)) continue;
+                outputs[i] = readOutput(record, line.length);
+                found[i] = true;
+                touched[slot] = true;
+                break;
+            }
+            if (found[i]) hits++;
+            else misses++;
+        }
+        return found;
+    }
+
+    /**
+     * Adds the outputs of lines that weren't found, unless the log has reached its maximum size.
+     *
+     * @param lines   the input lines
+     * @param outputs the output of each line ({@code null} for lines without output)
+     * @param count   the number of lines to add
+     * @throws IOException if the log can't be written
+     */
+    public synchronized void add(String[] lines, String[] outputs, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            if (logLength >= maxBytes) return;
+            byte[] line = lines[i].getBytes(StandardCharsets.UTF_8);
+            byte[] output = (outputs[i] != null) ? outputs[i].getBytes(StandardCharsets.UTF_8) : null;
+            long hash = hash(line);
+            int slot = findSlot(hash, line);
+            if (hashes[slot] != 0) continue; // a duplicate within the batch
+
+            int recordLength = 8 + 4 + line.length + 4 + ((output != null) ? output.length : 0);
+            appender.writeInt(recordLength);
+            appender.writeLong(fingerprint);
+            appender.writeInt(line.length);
+            appender.write(line);
+            appender.writeInt((output != null) ? output.length : -1);
+            if (output != null) appender.write(output);
+            put(slot, hash, logLength, true);
+            logLength += 4 + recordLength;
+        }
+    }
+
+    /**
+     * Writes pending results and the index, compacting the log first if it has reached its maximum size. Closing
+     * an already closed store does nothing.
+     *
+     * @throws IOException if the log or index can't be written
+     */
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        appender.close();
+        flushedLength = logLength;
+        StaticUtil.log("Result store: " + hits + " hits, " + misses + " misses");
+        if (logLength >= maxBytes) compact();
+        channel.force(true);
+        saveIndex();
+        channel.close();
+    }
+
+    /**
+     * Rewrites the log with only the records touched during this run, under a new log id, unless every record was
+     * touched.
+     *
+     * @throws IOException if the log can't be rewritten
+     */
+    private void compact() throws IOException {
+        boolean anyUntouched = false;
+        for (int slot = 0; slot < hashes.length && !anyUntouched; slot++) {
+            anyUntouched = hashes[slot] != 0 && !touched[slot];
+        }
+        if (!anyUntouched) return;
+
+        Path temp = logPath.resolveSibling(LOG_FILE + ".tmp");
+        long newId = new Random().nextLong();
+        long[] newHashes = new long[hashes.length];
+        long[] newOffsets = new long[offsets.length];
+        boolean[] newTouched = new boolean[touched.length];
+        long newLength = LOG_HEADER_SIZE;
+        int newSize = 0;
+        createLog(temp, newId);
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            for (int slot = 0; slot < hashes.length; slot++) {
+                if (hashes[slot] == 0 || !touched[slot]) continue;
+                ByteBuffer record = readRecord(offsets[slot]);
+                record.position(0);
+                while (record.hasRemaining()) out.write(record);
+                newHashes[slot] = hashes[slot];
+                newOffsets[slot] = newLength;
+                newLength += record.limit();
+                newSize++;
+            }
+            out.force(true);
+        }
+        StaticUtil.log("Result store compacted from " + logLength + " to " + newLength + " bytes");
+        channel.close();
+        Files.deleteIfExists(indexPath);
+        Files.move(temp, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        hashes = newHashes;
+        offsets = newOffsets;
+        touched = newTouched;
+        size = newSize;
+        logId = newId;
+        logLength = newLength;
+        flushedLength = newLength;
+    }
+
+    /**
+     * Loads the index if it belongs to the current log.
+     *
+     * @return the log offset up to which the index covers the log
+     * @throws IOException if the index can't be read
+     */
+    private long loadIndex() throws IOException {
+        if (!Files.exists(indexPath)) return LOG_HEADER_SIZE;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath), 1 << 16))) {
+            if (in.readLong() != INDEX_MAGIC || in.readLong() != logId) return LOG_HEADER_SIZE;
+            long indexedLength = in.readLong();
+            if (indexedLength > channel.size()) return LOG_HEADER_SIZE;
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long hash = in.readLong();
+                long offset = in.readLong();
+                int slot = slot(hash);
+                while (hashes[slot] != 0) slot = (slot + 1) & (hashes.length - 1);
+                put(slot, hash, offset, false);
+            }
+            return indexedLength;
+        } catch (EOFException e) {
+            // a partly written index; rebuild it from the log
+            Arrays.fill(hashes, 0);
+            size = 0;
+            return LOG_HEADER_SIZE;
+        }
+    }
+
+    /**
+     * Writes the index for the current log.
+     *
+     * @throws IOException if the index can't be written
+     */
+    private void saveIndex() throws IOException {
+        Path temp = indexPath.resolveSibling(INDEX_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeLong(INDEX_MAGIC);
+            out.writeLong(logId);
+            out.writeLong(logLength);
+            out.writeInt(size);
+            for (int slot = 0; slot < hashes.length; slot++) {
+                if (hashes[slot] == 0) continue;
+                out.writeLong(hashes[slot]);
+                out.writeLong(offsets[slot]);
+            }
+        }
+        Files.move(temp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Indexes the log's records from the given offset on.
+     *
+     * @param from the offset of the first record to index
+     * @return the offset just past the last complete record
+     * @throws IOException if the log can't be read
+     */
+    private long scan(long from) throws IOException {
+        long end = channel.size();
+        long offset = from;
+        channel.position(from);
+        InputStream raw = Channels.newInputStream(channel);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(raw, 1 << 16));
+        try {
+            while (offset + 4 <= end) {
+                int recordLength = in.readInt();
+                if (recordLength < 16 || offset + 4 + recordLength > end) break;
+                long recordFingerprint = in.readLong();
+                int lineLength = in.readInt();
+                if (lineLength < 0 || 16 + lineLength > recordLength) break;
+                byte[] line = new byte[lineLength];
+                in.readFully(line);
+                for (int skip = recordLength - 12 - lineLength; skip > 0; ) {
+                    int skipped = in.skipBytes(skip);
+                    if (skipped <= 0) throw new EOFException();
+                    skip -= skipped;
+                }
+                long hash = hash(recordFingerprint, line);
+                int slot = slot(hash);
+                while (hashes[slot] != 0) slot = (slot + 1) & (hashes.length - 1);
+                put(slot, hash, offset, false);
+                offset += 4 + recordLength;
+            }
+        } catch (EOFException e) {
+            // the last record was cut off
+        }
+        return offset;
+    }
+
+    private static void createLog(Path path, long id) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+        header.putLong(LOG_MAGIC).putLong(id).flip();
+        try (OutputStream out = Files.newOutputStream(path)) {
+            out.write(header.array());
+        }
+    }
+
+    /**
+     * Reads a whole record (with its length prefix) into the read buffer.
+     *
+     * @param offset the record's offset
+     * @return the read buffer, positioned at its start
+     * @throws IOException if the log can't be read
+     */
+    private ByteBuffer readRecord(long offset) throws IOException {
+        // the record may still be in the appender's buffer
+        if (offset + readBuffer.capacity() > flushedLength && flushedLength < logLength) {
+            appender.flush();
+            flushedLength = logLength;
+        }
+        readBuffer.clear();
+        readFully(offset, Math.min(readBuffer.capacity(), (int) (logLength - offset)));
+        int length = 4 + readBuffer.getInt(0);
+        if (length > readBuffer.limit()) {
+            if (length > readBuffer.capacity()) readBuffer = ByteBuffer.allocate(Integer.highestOneBit(length) << 1);
+            readBuffer.clear();
+            readFully(offset, length);
+        }
+        readBuffer.limit(length);
+        readBuffer.position(0);
+        return readBuffer;
+    }
+
+    private void readFully(long offset, int length) throws IOException {
+        readBuffer.limit(length);
+        while (readBuffer.hasRemaining()) {
+            if (channel.read(readBuffer, offset + readBuffer.position()) < 0) throw new EOFException("Result store log ended early");
+        }
+        readBuffer.flip();
+    }
+
+    private boolean matches(ByteBuffer record, byte[] line) {
+        if (record.getLong(4) != fingerprint || record.getInt(12) != line.length) return false;
+        for (int i = 0; i < line.length; i++) {
+            if (record.get(RECORD_HEADER_SIZE + i) != line[i]) return false;
+        }
+        return true;
+    }
+
+    private static String readOutput(ByteBuffer record, int lineLength) {
+        int outputAt = RECORD_HEADER_SIZE + lineLength;
+        int outputLength = record.getInt(outputAt);
+        if (outputLength < 0) return null;
+        return new String(record.array(), outputAt + 4, outputLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Finds the slot holding the given line's record, or the empty slot where it would go.
+     *
+     * @throws IOException if the log can't be read
+     */
+    private int findSlot(long hash, byte[] line) throws IOException {
+        int slot = slot(hash);
+        while (hashes[slot] != 0) {
+            if (hashes[slot] == hash && matches(readRecord(offsets[slot]), line)) return slot;
+            slot = (slot + 1) & (hashes.length - 1);
+        }
+        return slot;
+    }
+
+    private void put(int slot, long hash, long offset, boolean touch) {
+        hashes[slot] = hash;
+        offsets[slot] = offset;
+        touched[slot] = touch;
+        if (++size * 4L > hashes.length * 3L) grow();
+    }
+
+    private void grow() {
+        long[] oldHashes = hashes, oldOffsets = offsets;
+        boolean[] oldTouched = touched;
+        hashes = new long[oldHashes.length * 2];
+        offsets = new long[hashes.length];
+        touched = new boolean[hashes.length];
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] == 0) continue;
+            int slot = slot(oldHashes[i]);
+            while (hashes[slot] != 0) slot = (slot + 1) & (hashes.length - 1);
+            hashes[slot] = oldHashes[i];
+            offsets[slot] = oldOffsets[i];
+            touched[slot] = oldTouched[i];
+        }
+    }
+
+    private int slot(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & (hashes.length - 1);
+    }
+
+    private long hash(byte[] line) {
+        return hash(fingerprint, line);
+    }
+
+    // FNV-1a over the line, seeded with the fingerprint and finished with a mixer; never 0
+    private static long hash(long fingerprint, byte[] line) {
+        long h = 0xcbf29ce484222325L ^ fingerprint;
+        for (byte b : line) {
+            h = (h ^ b) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (h == 0) ? 1 : h;
+    }
+
+    private static long parseFingerprint(String fingerprint) {
+        return Long.parseUnsignedLong(fingerprint.substring(0, 16), 16);
+    }
+}
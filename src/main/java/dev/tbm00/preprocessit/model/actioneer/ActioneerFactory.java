@@ -34,6 +34,7 @@ public class ActioneerFactory {
         EXECUTOR_MAP.put(Action.ROUND, new RoundActioneer());
         EXECUTOR_MAP.put(Action.FORMAT_NUMBER, new FormatNumberActioneer());
         EXECUTOR_MAP.put(Action.SET_CASING, new SetCasingActioneer());
+        EXECUTOR_MAP.put(Action.MAP_VALUE, new MapValueActioneer());
     }
     
     public static ActioneerInterface getActioneer(Action action) {
@@ -0,0 +1,26 @@
+package dev.tbm00.preprocessit.model.actioneer;
+
+import java.io.IOException;
+import java.util.List;
+
+import dev.tbm00.preprocessit.model.data.ValueMap;
+import dev.tbm00.preprocessit.model.data.enums.ActionSpec;
+
+public class MapValueActioneer implements ActioneerInterface {
+    
+    @Override
+    public String execute(String word, ActionSpec actionSpec, String matchedString, List<String> log) {
+        try {
+            // already loaded when the config was
+            String value = ValueMap.current(actionSpec.getParameter()).get(word);
+            if (value == null) {
+                log.add("      (MapValueActioneer: no mapping for " + word + ")");
+                return word;
+            }
+            word = value;
+            log.add("      (MapValueActioneer: " + word + ")");
+        } catch (IOException e) {
+            log.add("      (MapValueActioneer: error loading table: " + e.getMessage() + ")");
+        } return word;
+    }
+}
@@ -9,6 +9,7 @@ public class Attribute {
     private int id;
     private String name;
     private ArrayList<Qualifier> qualifiers;
+    private TokenPrefilter prefilter;
 
     public Attribute(int id, String name, ArrayList<Qualifier> qualifiers) {
         this.id = id;
@@ -40,4 +41,13 @@ public class Attribute {
     public void setQualifiers(ArrayList<Qualifier> qualifiers) {
         this.qualifiers = qualifiers;
     }
+
+    // Get the filter that tokens must pass before the qualifiers run on them (null if every token is checked)
+    public TokenPrefilter getPrefilter() {
+        return prefilter;
+    }
+
+    public void setPrefilter(TokenPrefilter prefilter) {
+        this.prefilter = prefilter;
+    }
 }
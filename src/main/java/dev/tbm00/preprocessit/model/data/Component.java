@@ -1,7 +1,11 @@
 package dev.tbm00.preprocessit.model.data;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import dev.tbm00.preprocessit.model.CompiledComponent;
 
 /**
  * Components hold attributes & input line rules
@@ -14,6 +18,8 @@ public class Component {
     private String attributeOutputDelimiter;
     private LineRule inputLineRule;
     private LineRule outputLineRule;
+    private int[] attributeOutputSlots;
+    private CompiledComponent compiled;
 
     public Component(int id, String name, ArrayList<Attribute> attributes, List<String> attributeOutputOrder, String attributeOutputDelimiter, LineRule inputLineRule, LineRule outputLineRule) {
         this.id = id;
@@ -23,6 +29,7 @@ public class Component {
         this.attributeOutputDelimiter = attributeOutputDelimiter;
         this.inputLineRule = inputLineRule;
         this.outputLineRule = outputLineRule;
+        resolveAttributeOutputSlots();
         //StaticUtil.log("component: " + id + " " + name + " " + attributes);
     }
 
@@ -48,6 +55,17 @@ public class Component {
 
     public void setAttributes(ArrayList<Attribute> attributes) {
         this.attributes = attributes;
+        this.compiled = null;
+        resolveAttributeOutputSlots();
+    }
+
+    // Get the generated code running this component's attribute qualifiers (null if they're interpreted)
+    public CompiledComponent getCompiled() {
+        return compiled;
+    }
+
+    public void setCompiled(CompiledComponent compiled) {
+        this.compiled = compiled;
     }
 
     public List<String> getAttributeOrder() {
@@ -56,6 +74,38 @@ public class Component {
 
     public void setAttributeOrder(List<String> attributeOutputOrder) {
         this.attributeOutputOrder = attributeOutputOrder;
+        resolveAttributeOutputSlots();
+    }
+
+    /**
+     * Returns, for each entry of the attribute output order, the index of the named attribute
+     * in {@link #getAttributes()}, or {@code -1} if no attribute has that name.
+     *
+     * @return the output order resolved to attribute slots
+     */
+    public int[] getAttributeOutputSlots() {
+        return attributeOutputSlots;
+    }
+
+    /**
+     * Resolves the attribute output order's names to attribute list indices, so that
+     * per-line bookkeeping can index arrays instead of hashing names.
+     */
+    private void resolveAttributeOutputSlots() {
+        if (attributeOutputOrder == null) {
+            attributeOutputSlots = new int[0];
+            return;
+        }
+        Map<String, Integer> slotsByName = new HashMap<>();
+        if (attributes != null) {
+            for (int i = 0; i < attributes.size(); i++) {
+                slotsByName.putIfAbsent(attributes.get(i).getName(), i);
+            }
+        }
+        attributeOutputSlots = new int[attributeOutputOrder.size()];
+        for (int i = 0; i < attributeOutputSlots.length; i++) {
+            attributeOutputSlots[i] = slotsByName.getOrDefault(attributeOutputOrder.get(i), -1);
+        }
     }
 
     public String getAttributeDelimiter() {
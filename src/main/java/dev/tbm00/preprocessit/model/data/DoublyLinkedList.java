@@ -71,6 +71,13 @@ public class DoublyLinkedList<T> {
         return null;
     }
 
+    // Remove all nodes from the list
+    public void clear() {
+        head = null;
+        tail = null;
+        size = 0;
+    }
+
     // Add a node to the beginning of the list
     public void addFirst(T data) {
         Node<T> newNode = new Node<>(data);
@@ -0,0 +1,155 @@
+package dev.tbm00.preprocessit.model.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * A read-only, memory-mapped view of a UTF-8 text file that can fetch any line by number without reading the file
+ * into the heap.
+ *
+ * <p>The file is mapped in 1 GB chunks, so files larger than 2 GB work too. A sparse line index holds the byte offset
+ * of every {@value #INDEX_STRIDE}th line; fetching a line scans forward from the nearest indexed line. That keeps the
+ * index at a few MB even for tens of millions of lines.</p>
+ *
+ * <p>The file may keep growing (e.g. output being written): {@link #refresh()} maps and indexes whatever was appended
+ * since the last call. A trailing line without a line break counts as a line and is completed by later appends.</p>
+ *
+ * <p>Not thread-safe: refresh and read from the same thread, or hand the instance over only once it's indexed.</p>
+ */
+public class MappedTextFile implements Closeable {
+    private static final int CHUNK_BITS = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+    private static final int INDEX_STRIDE = 64;
+    /** Longest line prefix (in bytes) returned by {@link #getLine(int)}; longer lines are cut off. */
+    public static final int MAX_LINE_BYTES = 1 << 16;
+    /** Bytes scanned between progress callbacks while indexing. */
+    private static final long PROGRESS_INTERVAL = 1L << 24;
+
+    private final Path path;
+    private final FileChannel channel;
+    private MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+    private long length;
+    private long[] lineIndex = new long[] {0L};
+    private int newlineCount;
+    private long lastLineStart;
+
+    /**
+     * Opens the file without indexing it; call {@link #refresh()} before reading lines.
+     *
+     * @param path The text file to map.
+     * @throws IOException if the file can't be opened.
+     */
+    public MappedTextFile(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    // Get the number of bytes mapped and indexed so far
+    public long getLength() {
+        return length;
+    }
+
+    // Get the number of lines indexed so far (including an unterminated last line)
+    public int getLineCount() {
+        return newlineCount + (length > lastLineStart ? 1 : 0);
+    }
+
+    /**
+     * Maps and indexes any bytes appended to the file since the last call.
+     *
+     * @return {@code true} if the file grew.
+     * @throws IOException if the file can't be mapped.
+     */
+    public boolean refresh() throws IOException {
+        return refresh(null);
+    }
+
+    /**
+     * Maps and indexes any bytes appended to the file since the last call, reporting the number of bytes indexed so
+     * far to {@code progress} every 16 MB.
+     *
+     * @param progress The progress callback, or {@code null}.
+     * @return {@code true} if the file grew.
+     * @throws IOException if the file can't be mapped.
+     */
+    public boolean refresh(LongConsumer progress) throws IOException {
+        long size = channel.size();
+        if (size <= length) return false;
+
+        // (Re)map the partially mapped last chunk and any new chunks
+        int firstChunk = (int) (length >>> CHUNK_BITS);
+        int chunkCount = (int) ((size - 1) >>> CHUNK_BITS) + 1;
+        if (chunkCount > chunks.length) chunks = Arrays.copyOf(chunks, chunkCount);
+        for (int c = firstChunk; c < chunkCount; c++) {
+            long start = (long) c << CHUNK_BITS;
+            chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_MASK + 1, size - start));
+        }
+
+        // Index the new line breaks
+        for (long pos = length; pos < size; pos++) {
+            if (byteAt(pos) == '\n') {
+                newlineCount++;
+                lastLineStart = pos + 1;
+                if (newlineCount % INDEX_STRIDE == 0) addIndexEntry(pos + 1);
+            }
+            if (progress != null && (pos & (PROGRESS_INTERVAL - 1)) == 0) progress.accept(pos);
+        }
+        length = size;
+        if (progress != null) progress.accept(size);
+        return true;
+    }
+
+    /**
+     * Gets a line's text, without its line break (or a trailing carriage return).
+     *
+     * @param index The zero-based line number.
+     * @return The line, cut off after {@value #MAX_LINE_BYTES} bytes, or {@code ""} if out of range.
+     */
+    public String getLine(int index) {
+        if (index < 0 || index >= getLineCount()) return "";
+
+        // Skip forward from the nearest indexed line
+        long pos = lineIndex[index / INDEX_STRIDE];
+        for (int skip = index % INDEX_STRIDE; skip > 0; pos++) {
+            if (byteAt(pos) == '\n') skip--;
+        }
+
+        long end = pos;
+        long limit = Math.min(length, pos + MAX_LINE_BYTES);
+        while (end < limit && byteAt(end) != '\n') end++;
+        if (end > pos && byteAt(end - 1) == '\r') end--;
+
+        byte[] bytes = new byte[(int) (end - pos)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = byteAt(pos + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        chunks = new MappedByteBuffer[0];
+        channel.close();
+    }
+
+    private byte byteAt(long pos) {
+        return chunks[(int) (pos >>> CHUNK_BITS)].get((int) (pos & CHUNK_MASK));
+    }
+
+    private void addIndexEntry(long lineStart) {
+        int slot = newlineCount / INDEX_STRIDE;
+        if (slot >= lineIndex.length) lineIndex = Arrays.copyOf(lineIndex, lineIndex.length * 2);
+        lineIndex[slot] = lineStart;
+    }
+}
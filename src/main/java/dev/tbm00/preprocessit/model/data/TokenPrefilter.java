@@ -0,0 +1,138 @@
+package dev.tbm00.preprocessit.model.data;
+
+import dev.tbm00.preprocessit.model.data.enums.Condition;
+
+/**
+ * A cheap necessary condition for a qualifier's matcher to match a token.
+ *
+ * <p>The prefilter is a set of ASCII characters, one of which must appear in the token (anywhere, first, or last,
+ * depending on the condition). If {@link #mayMatch(String)} returns {@code false}, the matcher is guaranteed to
+ * return no match; if it returns {@code true}, the matcher still has to run. Tokens with non-ASCII characters always
+ * pass, since case conversion and number parsing treat some of those like ASCII characters.</p>
+ */
+public class TokenPrefilter {
+    private enum Position { ANY, FIRST, LAST }
+
+    private final Position position;
+    private final long lowMask;
+    private final long highMask;
+    private final String description;
+
+    private TokenPrefilter(Position position, String chars, String description) {
+        long low = 0, high = 0;
+        for (int i = 0; i < chars.length(); i++) {
+            char c = chars.charAt(i);
+            if (c < 64) low |= 1L << c;
+            else high |= 1L << (c - 64);
+        }
+        this.position = position;
+        this.lowMask = low;
+        this.highMask = high;
+        this.description = description;
+    }
+
+    /**
+     * Derives a prefilter for a condition, if it has one.
+     *
+     * @param condition The qualifier's condition.
+     * @param values    The qualifier's value string.
+     * @return The prefilter, or {@code null} if the condition has no cheap necessary condition.
+     */
+    public static TokenPrefilter forCondition(Condition condition, String values) {
+        if (condition == null || values == null) return null;
+        switch (condition) {
+            case CONTAINS:
+                return forCandidates(Position.ANY, values);
+            case STARTS_WITH:
+            case EQUALS_STRING:
+                return forCandidates(Position.FIRST, values);
+            case ENDS_WITH:
+                return forCandidates(Position.LAST, values);
+            case GREATER_THAN:
+            case GREATER_THAN_EQUAL_TO:
+            case LESS_THAN:
+            case LESS_THAN_EQUAL_TO:
+            case IN_BETWEEN_INCLUSIVE:
+            case IN_BETWEEN_EXCLUSIVE:
+            case EQUALS_VALUE:
+                // Double.parseDouble needs a digit, or the N/I of "NaN"/"Infinity"
+                return new TokenPrefilter(Position.ANY, "0123456789NI", "containing a digit, N or I");
+            case NUMBER_WITH_UNIT:
+                return new TokenPrefilter(Position.ANY, "0123456789", "containing a digit");
+            case IS_TYPE:
+                switch (values.toUpperCase()) {
+                    case "INTEGER":
+                        return new TokenPrefilter(Position.ANY, "0123456789", "containing a digit");
+                    case "DOUBLE":
+                    case "NUMBER":
+                        return new TokenPrefilter(Position.LAST, "0123456789", "ending with a digit");
+                    default:
+                        return null;
+                }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Builds a prefilter from the case-insensitive first (or last) characters of {@code |}-separated candidates.
+     *
+     * @param position Where in the token the character has to appear.
+     * @param values   The candidates.
+     * @return The prefilter, or {@code null} if a candidate isn't ASCII.
+     */
+    private static TokenPrefilter forCandidates(Position position, String values) {
+        StringBuilder chars = new StringBuilder();
+        for (String candidate : values.split("\\|")) {
+            // Empty candidates never produce a match
+            if (candidate.isEmpty()) continue;
+            for (int i = 0; i < candidate.length(); i++) {
+                if (candidate.charAt(i) >= 128) return null;
+            }
+            char c = (position == Position.LAST) ? candidate.charAt(candidate.length() - 1) : candidate.charAt(0);
+            for (char variant : new char[] {Character.toLowerCase(c), Character.toUpperCase(c)}) {
+                if (chars.indexOf(String.valueOf(variant)) < 0) chars.append(variant);
+            }
+        }
+        String where = (position == Position.ANY) ? "containing " : (position == Position.FIRST) ? "starting with " : "ending with ";
+        return new TokenPrefilter(position, chars.toString(), where + "one of [" + chars + "]");
+    }
+
+    /**
+     * Checks whether the matcher could match the token.
+     *
+     * @param token The non-empty token value.
+     * @return {@code false} only if the matcher can't match it.
+     */
+    public boolean mayMatch(String token) {
+        switch (position) {
+            case FIRST:
+                return mayMatch(token.charAt(0)) || !isAscii(token);
+            case LAST:
+                return mayMatch(token.charAt(token.length() - 1)) || !isAscii(token);
+            default:
+                for (int i = 0, len = token.length(); i < len; i++) {
+                    char c = token.charAt(i);
+                    if (c >= 128 || mayMatch(c)) return true;
+                }
+                return false;
+        }
+    }
+
+    private boolean mayMatch(char c) {
+        if (c >= 128) return true;
+        return (c < 64) ? (lowMask & (1L << c)) != 0 : (highMask & (1L << (c - 64))) != 0;
+    }
+
+    private static boolean isAscii(String token) {
+        for (int i = 0, len = token.length(); i < len; i++) {
+            if (token.charAt(i) >= 128) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "tokens " + description;
+    }
+}
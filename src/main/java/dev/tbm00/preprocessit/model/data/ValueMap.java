@@ -0,0 +1,154 @@
+package dev.tbm00.preprocessit.model.data;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import dev.tbm00.preprocessit.StreamUtil;
+
+/**
+ * An immutable, case-insensitive key to value table, for normalizing many synonyms in a single lookup instead of a
+ * chain of qualifiers.
+ *
+ * <p>A table is given either inline, as {@code key=value|key=value|...}, or as the path of a CSV file (ending with
+ * {@code .csv}, optionally gzip-compressed as {@code .csv.gz}) with one {@code key,value} pair per line; a value may
+ * itself contain commas, and blank lines and lines starting with {@code #} are skipped. Keys and values are trimmed,
+ * and keys are upper-cased (like the string matchers do). When a key appears more than once, its
+ * first value wins, like the first of a chain of qualifiers would.</p>
+ *
+ * <p>Tables are cached, inline ones by their specification and file ones by file, so every qualifier, action and
+ * thread referencing the same table shares one instance. Loading a file table (as every config load does) reads the
+ * file again once its size or modification time has changed, replacing the old copy.</p>
+ */
+public class ValueMap {
+    /** The table last loaded for each specification: inline ones never change, file ones as of their last load. */
+    private static final Map<String, ValueMap> SPEC_CACHE = new ConcurrentHashMap<>();
+    /** The file tables, by file path, each with the key (path, size and modification time) it was read as. */
+    private static final Map<Path, Loaded> FILE_CACHE = new ConcurrentHashMap<>();
+
+    private final Map<String, String> values;
+
+    private ValueMap(Map<String, String> values) {
+        this.values = values;
+    }
+
+    /**
+     * Gets the table for a specification, parsing it on first use, or reading the file on first use and again once it
+     * has changed.
+     *
+     * @param spec The inline table, or the path of a CSV file.
+     * @return The table.
+     * @throws IOException if the file can't be read, or the specification is malformed.
+     */
+    public static ValueMap load(String spec) throws IOException {
+        if (spec == null) throw new IOException("No table given");
+        if (isFile(spec)) {
+            ValueMap map = loadFile(Paths.get(spec.trim()).toAbsolutePath().normalize());
+            SPEC_CACHE.put(spec, map);
+            return map;
+        }
+
+        ValueMap cached = SPEC_CACHE.get(spec);
+        if (cached != null) return cached;
+        Map<String, String> values = new HashMap<>();
+        for (String pair : spec.split("\\|")) {
+            if (pair.trim().isEmpty()) continue;
+            int equals = pair.indexOf('=');
+            if (equals < 0) throw new IOException("Expected key=value, found: " + pair);
+            values.putIfAbsent(pair.substring(0, equals).trim().toUpperCase(), pair.substring(equals + 1).trim());
+        }
+        ValueMap map = new ValueMap(values);
+        SPEC_CACHE.put(spec, map);
+        return map;
+    }
+
+    /**
+     * Gets the table last loaded for a specification, without checking whether its file has changed since (so it's
+     * cheap enough to call per lookup), or loads it if it hasn't been yet.
+     *
+     * @param spec The inline table, or the path of a CSV file.
+     * @return The table.
+     * @throws IOException if the file can't be read, or the specification is malformed.
+     */
+    public static ValueMap current(String spec) throws IOException {
+        ValueMap cached = (spec != null) ? SPEC_CACHE.get(spec) : null;
+        return (cached != null) ? cached : load(spec);
+    }
+
+    private static ValueMap loadFile(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) throw new IOException("No such table file: " + file);
+        String key = file + "|" + Files.size(file) + "|" + Files.getLastModifiedTime(file).toMillis();
+        Loaded cached = FILE_CACHE.get(file);
+        if (cached != null && cached.key.equals(key)) return cached.map;
+
+        Map<String, String> values = new HashMap<>();
+        try (BufferedReader reader = StreamUtil.openReader(file.toString())) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty() || line.trim().startsWith("#")) continue;
+                int comma = line.indexOf(',');
+                if (comma < 0) throw new IOException("Expected key,value on line " + lineNumber + " of " + file);
+                values.putIfAbsent(line.substring(0, comma).trim().toUpperCase(), line.substring(comma + 1).trim());
+            }
+        }
+        ValueMap map = new ValueMap(values);
+        // replaces (and so frees) any copy read before the file changed
+        FILE_CACHE.put(file, new Loaded(key, map));
+        return map;
+    }
+
+    /**
+     * Identifies every table file loaded so far (by path, size and modification time), so fingerprints of a config
+     * can cover the tables it references.
+     *
+     * @return The loaded files' keys, sorted.
+     */
+    public static SortedSet<String> loadedFiles() {
+        SortedSet<String> keys = new TreeSet<>();
+        for (Loaded loaded : FILE_CACHE.values()) keys.add(loaded.key);
+        return keys;
+    }
+
+    /**
+     * Looks up a word's value, ignoring case.
+     *
+     * @param word The word.
+     * @return The value, or {@code null} if the upper-cased word isn't a key.
+     */
+    public String get(String word) {
+        return values.get(word.toUpperCase());
+    }
+
+    /**
+     * Gets the number of (distinct) keys.
+     *
+     * @return The key count.
+     */
+    public int size() {
+        return values.size();
+    }
+
+    private static boolean isFile(String spec) {
+        String lower = spec.trim().toLowerCase();
+        return lower.endsWith(".csv") || lower.endsWith(".csv" + StreamUtil.GZIP_EXTENSION);
+    }
+
+    private static class Loaded {
+        private final String key;
+        private final ValueMap map;
+
+        private Loaded(String key, ValueMap map) {
+            this.key = key;
+            this.map = map;
+        }
+    }
+}
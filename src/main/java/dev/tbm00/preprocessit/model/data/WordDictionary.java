@@ -0,0 +1,192 @@
+package dev.tbm00.preprocessit.model.data;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import dev.tbm00.preprocessit.StreamUtil;
+
+/**
+ * An immutable, case-insensitive set of words loaded from a dictionary file, for conditions that check a word against
+ * far more candidates than fit in a qualifier's {@code value}.
+ *
+ * <p>The file has one entry per line (UTF-8, optionally gzip-compressed); entries are trimmed, and blank lines and
+ * lines starting with {@code #} are skipped. Entries are upper-cased (like the string matchers do) and stored sorted
+ * and deduplicated as UTF-8 in a single byte array, with an array of offsets into it, so millions of entries cost
+ * little more than their bytes. Lookups binary search the array, in O(log n), behind a Bloom filter (about 10 bits per
+ * entry) that turns away nearly all absent words without touching it.</p>
+ *
+ * <p>Dictionaries are cached by file, so every qualifier and thread referencing the same file shares one instance;
+ * once the file's size or modification time changes, the next load reads it again and replaces the old copy.</p>
+ */
+public class WordDictionary {
+    /** The loaded dictionaries, by file path, each with the key (path, size and modification time) it was read as. */
+    private static final Map<Path, Loaded> CACHE = new ConcurrentHashMap<>();
+    private static final int BLOOM_PROBES = 4;
+
+    private final byte[] entries;
+    private final int[] offsets;
+    private final long[] bloom;
+    private final int bloomMask;
+
+    private WordDictionary(List<byte[]> sorted, List<String> words) {
+        int size = sorted.size();
+        offsets = new int[size + 1];
+        ByteArrayOutputStream blob = new ByteArrayOutputStream();
+        for (int i = 0; i < size; i++) {
+            offsets[i] = blob.size();
+            blob.write(sorted.get(i), 0, sorted.get(i).length);
+        }
+        offsets[size] = blob.size();
+        entries = blob.toByteArray();
+
+        int bits = Math.max(64, Integer.highestOneBit(Math.max(1, size) * 10 - 1) << 1);
+        bloom = new long[bits >>> 6];
+        bloomMask = bits - 1;
+        for (String word : words) {
+            long h = hash(word);
+            for (int i = 0; i < BLOOM_PROBES; i++) {
+                int bit = (int) (h + i * (h >>> 32)) & bloomMask;
+                bloom[bit >>> 6] |= 1L << bit;
+            }
+        }
+    }
+
+    /**
+     * Gets the dictionary for a file, loading it on first use (or when the file has changed since).
+     *
+     * @param path The dictionary file's path.
+     * @return The dictionary.
+     * @throws IOException if the file can't be read.
+     */
+    public static WordDictionary load(String path) throws IOException {
+        Path file = Paths.get(path.trim()).toAbsolutePath().normalize();
+        if (!Files.isRegularFile(file)) throw new IOException("No such dictionary file: " + file);
+        String key = file + "|" + Files.size(file) + "|" + Files.getLastModifiedTime(file).toMillis();
+        Loaded cached = CACHE.get(file);
+        if (cached != null && cached.key.equals(key)) return cached.dictionary;
+
+        List<String> words = new ArrayList<>();
+        try (BufferedReader reader = StreamUtil.openReader(file.toString())) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                words.add(line.toUpperCase());
+            }
+        }
+        byte[][] encoded = new byte[words.size()][];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = words.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+        Arrays.sort(encoded, WordDictionary::compare);
+        List<byte[]> sorted = new ArrayList<>(encoded.length);
+        for (byte[] entry : encoded) {
+            if (sorted.isEmpty() || compare(sorted.get(sorted.size() - 1), entry) != 0) sorted.add(entry);
+        }
+        WordDictionary dictionary = new WordDictionary(sorted, words);
+        // replaces (and so frees) any copy read before the file changed
+        CACHE.put(file, new Loaded(key, dictionary));
+        return dictionary;
+    }
+
+    /**
+     * Identifies every dictionary file loaded so far (by path, size and modification time), so fingerprints of a
+     * config can cover the dictionaries it references.
+     *
+     * @return The loaded files' keys, sorted.
+     */
+    public static SortedSet<String> loadedFiles() {
+        SortedSet<String> keys = new TreeSet<>();
+        for (Loaded loaded : CACHE.values()) keys.add(loaded.key);
+        return keys;
+    }
+
+    /**
+     * Checks whether the dictionary contains a word, ignoring case.
+     *
+     * @param word The word.
+     * @return {@code true} if the upper-cased word is an entry.
+     */
+    public boolean contains(String word) {
+        String upper = word.toUpperCase();
+        long h = hash(upper);
+        for (int i = 0; i < BLOOM_PROBES; i++) {
+            int bit = (int) (h + i * (h >>> 32)) & bloomMask;
+            if ((bloom[bit >>> 6] & (1L << bit)) == 0) return false;
+        }
+
+        byte[] key = upper.getBytes(StandardCharsets.UTF_8);
+        int low = 0, high = offsets.length - 2;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareEntry(mid, key);
+            if (cmp < 0) low = mid + 1;
+            else if (cmp > 0) high = mid - 1;
+            else return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of (distinct) entries.
+     *
+     * @return The entry count.
+     */
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    // Compare entry i to key, by unsigned bytes
+    private int compareEntry(int i, byte[] key) {
+        int start = offsets[i], length = offsets[i + 1] - start;
+        int n = Math.min(length, key.length);
+        for (int j = 0; j < n; j++) {
+            int cmp = (entries[start + j] & 0xff) - (key[j] & 0xff);
+            if (cmp != 0) return cmp;
+        }
+        return length - key.length;
+    }
+
+    private static int compare(byte[] a, byte[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            int cmp = (a[i] & 0xff) - (b[i] & 0xff);
+            if (cmp != 0) return cmp;
+        }
+        return a.length - b.length;
+    }
+
+    // 64-bit FNV-1a over the chars, finished with a mixer
+    private static long hash(String word) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0, len = word.length(); i < len; i++) {
+            h = (h ^ word.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static class Loaded {
+        private final String key;
+        private final WordDictionary dictionary;
+
+        private Loaded(String key, WordDictionary dictionary) {
+            this.key = key;
+            this.dictionary = dictionary;
+        }
+    }
+}
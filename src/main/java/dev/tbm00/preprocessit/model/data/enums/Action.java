@@ -36,5 +36,6 @@ public enum Action {
     PREPEND,
     SET_WORKING_WORD,
     SET_TOKEN_VALUE,
+    MAP_VALUE,
     DELETE_LINE
 }
\ No newline at end of file
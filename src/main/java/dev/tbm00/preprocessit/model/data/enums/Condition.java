@@ -28,5 +28,11 @@ public enum Condition {
     NOT_STARTS_WITH,
     NOT_ENDS_WITH,
     NOT_IS_TYPE,
-    NOT_IS_EMPTY
+    NOT_IS_EMPTY,
+    IN_DICTIONARY,
+    NOT_IN_DICTIONARY,
+    FUZZY_EQUALS,
+    IN_MAP,
+    NUMBER_WITH_UNIT,
+    PHRASE
 }
@@ -0,0 +1,8 @@
+package dev.tbm00.preprocessit.model.data.enums;
+
+public enum ExecutorStrategy {
+    FIXED,
+    WORK_STEALING,
+    FORK_JOIN,
+    VIRTUAL
+}
@@ -1,23 +1,23 @@
 package dev.tbm00.preprocessit.model.matcher;
 
+import java.util.HashSet;
+import java.util.Set;
+
 public class EqualsStringMatcher implements MatcherInterface {
 
-    private String[] validValues;
+    private final Set<String> validValues = new HashSet<>();
     
     public EqualsStringMatcher(String values) {
-        values.toUpperCase();
-        this.validValues = values.split("\\|");
+        // fold the candidates once, so matching is a single lookup at any list size
+        for (String v : values.split("\\|")) {
+            validValues.add(v.toUpperCase());
+        }
     }
 
     @Override
     public String match(String word) {
-        String upperWord = word.toUpperCase();
-
-        for (String v : validValues) {
-            String upperCandidate = v.toUpperCase();
-            if (upperWord.equals(upperCandidate)) {
-                return word;
-            }
+        if (validValues.contains(word.toUpperCase())) {
+            return word;
         }
         
         return "";
@@ -0,0 +1,167 @@
+package dev.tbm00.preprocessit.model.matcher;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Matches a word within a maximum (case-insensitive) Levenshtein distance of any candidate, returning the closest
+ * candidate as configured, so {@code KEEP_MATCH} turns a misspelling into its canonical value.
+ *
+ * <p>Expects {@code "maxDistance,candidate|candidate|..."}. The candidates are put in a BK-tree at config load, which
+ * prunes every subtree outside the distance band allowed by the triangle inequality, so a lookup only measures a
+ * fraction of the candidates. Ties go to the candidate listed first.</p>
+ */
+public class FuzzyEqualsMatcher implements MatcherInterface {
+    private final int maxDistance;
+    private final Map<String, String> exact = new HashMap<>();
+    private Node root;
+    private int longestKey;
+
+    public FuzzyEqualsMatcher(String values) {
+        // expects "maxDistance,candidate|candidate|..."
+        int comma = values.indexOf(',');
+        if (comma < 0) throw new IllegalArgumentException("expected maxDistance,candidate|candidate|...");
+        this.maxDistance = Integer.parseInt(values.substring(0, comma).trim());
+        if (maxDistance < 0) throw new IllegalArgumentException("maxDistance must not be negative");
+
+        int order = 0;
+        for (String candidate : values.substring(comma + 1).split("\\|")) {
+            String upper = candidate.toUpperCase();
+            if (exact.containsKey(upper)) continue;
+            exact.put(upper, candidate);
+            longestKey = Math.max(longestKey, upper.length());
+            insert(new Node(upper.toCharArray(), candidate, order++));
+        }
+        if (root != null) freeze(root);
+    }
+
+    @Override
+    public String match(String word) {
+        String upper = word.toUpperCase();
+        String canonical = exact.get(upper);
+        if (canonical != null) return canonical;
+        if (root == null || maxDistance == 0 || word.isEmpty()) return "";
+
+        char[] query = upper.toCharArray();
+        int[] previous = new int[longestKey + 1];
+        int[] current = new int[longestKey + 1];
+        Node best = null;
+        int bestDistance = maxDistance + 1;
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            // only candidates at least as close as the best so far matter
+            int radius = Math.min(maxDistance, bestDistance);
+            // beyond this neither the node nor any child's band can match, so the exact distance doesn't matter
+            int limit = node.largestEdge + radius;
+            int distance = distance(query, node.key, previous, current, limit);
+            if (distance > limit) continue;
+            if (distance < bestDistance || (distance == bestDistance && best != null && node.order < best.order)) {
+                best = node;
+                bestDistance = distance;
+                radius = Math.min(maxDistance, bestDistance);
+            }
+            if (node.edges == null) continue;
+            int from = Arrays.binarySearch(node.edges, distance - radius);
+            for (int i = (from >= 0) ? from : -from - 1; i < node.edges.length && node.edges[i] <= distance + radius; i++) {
+                pending.push(node.kids[i]);
+            }
+        }
+        return (best != null) ? best.canonical : "";
+    }
+
+    /**
+     * Replaces the children maps built while inserting with arrays sorted by edge, which are far cheaper to scan.
+     *
+     * @param node the subtree's root
+     */
+    private static void freeze(Node node) {
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(node);
+        while (!pending.isEmpty()) {
+            Node current = pending.pop();
+            if (current.children == null) continue;
+            current.edges = new int[current.children.size()];
+            current.kids = new Node[current.edges.length];
+            int i = 0;
+            for (Map.Entry<Integer, Node> child : new TreeMap<>(current.children).entrySet()) {
+                current.edges[i] = child.getKey();
+                current.kids[i++] = child.getValue();
+                pending.push(child.getValue());
+            }
+            current.children = null;
+        }
+    }
+
+    private void insert(Node node) {
+        if (root == null) {
+            root = node;
+            return;
+        }
+        Node parent = root;
+        while (true) {
+            int distance = distance(node.key, parent.key, new int[parent.key.length + 1], new int[parent.key.length + 1], Integer.MAX_VALUE - 1);
+            if (parent.children == null) parent.children = new HashMap<>();
+            parent.largestEdge = Math.max(parent.largestEdge, distance);
+            Node child = parent.children.get(distance);
+            if (child == null) {
+                parent.children.put(distance, node);
+                return;
+            }
+            parent = child;
+        }
+    }
+
+    /**
+     * Computes the Levenshtein distance between two strings, giving up once it exceeds a limit.
+     *
+     * @param a        the first string
+     * @param b        the second string
+     * @param previous a scratch row at least {@code b.length + 1} long
+     * @param current  another scratch row at least {@code b.length + 1} long
+     * @param limit    the largest distance of interest
+     * @return the number of single-character insertions, deletions and substitutions turning one into the other, or
+     *         {@code limit + 1} if that's more than {@code limit}
+     */
+    private static int distance(char[] a, char[] b, int[] previous, int[] current, int limit) {
+        if (Math.abs(a.length - b.length) > limit) return limit + 1;
+        for (int j = 0; j <= b.length; j++) previous[j] = j;
+        for (int i = 1; i <= a.length; i++) {
+            current[0] = i;
+            int rowMin = i;
+            char ca = a[i - 1];
+            for (int j = 1; j <= b.length; j++) {
+                int cost = (ca == b[j - 1]) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (current[j] < rowMin) rowMin = current[j];
+            }
+            // every later row's values are at least this row's minimum
+            if (rowMin > limit) return limit + 1;
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length], limit + 1);
+    }
+
+    private static class Node {
+        private final char[] key;
+        private final String canonical;
+        private final int order;
+        private Map<Integer, Node> children;
+        private int[] edges;
+        private Node[] kids;
+        private int largestEdge;
+
+        private Node(char[] key, String canonical, int order) {
+            this.key = key;
+            this.canonical = canonical;
+            this.order = order;
+        }
+    }
+}
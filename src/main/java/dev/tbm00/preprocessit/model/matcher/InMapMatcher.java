@@ -0,0 +1,22 @@
+package dev.tbm00.preprocessit.model.matcher;
+
+import java.io.IOException;
+
+import dev.tbm00.preprocessit.model.data.ValueMap;
+
+public class InMapMatcher implements MatcherInterface {
+    private ValueMap map;
+
+    public InMapMatcher(String values) throws IOException {
+        this.map = ValueMap.load(values);
+    }
+
+    @Override
+    public String match(String word) {
+        if (map.get(word) != null) {
+            return word;
+        }
+
+        return "";
+    }
+}
@@ -1,5 +1,8 @@
 package dev.tbm00.preprocessit.model.matcher;
 
+import java.io.IOException;
+
+import dev.tbm00.preprocessit.StaticUtil;
 import dev.tbm00.preprocessit.model.data.enums.Condition;
 
 public class MatcherFactory {
@@ -61,6 +64,41 @@ public class MatcherFactory {
             return new NotIsTypeMatcher(values);
         } else if (Condition.NOT_IS_EMPTY.equals(condition)) {
             return new NotIsEmptyMatcher();
+        } else if (Condition.IN_DICTIONARY.equals(condition) || Condition.NOT_IN_DICTIONARY.equals(condition)) {
+            try {
+                return Condition.IN_DICTIONARY.equals(condition) ? new InDictionaryMatcher(values) : new NotInDictionaryMatcher(values);
+            } catch (IOException e) {
+                StaticUtil.log("Error loading dictionary " + values + ": " + e.getMessage());
+                return null;
+            }
+        } else if (Condition.IN_MAP.equals(condition)) {
+            try {
+                return new InMapMatcher(values);
+            } catch (IOException e) {
+                StaticUtil.log("Error loading table " + values + ": " + e.getMessage());
+                return null;
+            }
+        } else if (Condition.NUMBER_WITH_UNIT.equals(condition)) {
+            try {
+                return new NumberWithUnitMatcher(values);
+            } catch (IllegalArgumentException e) {
+                StaticUtil.log("Error parsing number with unit " + values + ": " + e.getMessage());
+                return null;
+            }
+        } else if (Condition.PHRASE.equals(condition)) {
+            try {
+                return new PhraseMatcher(values);
+            } catch (IllegalArgumentException e) {
+                StaticUtil.log("Error parsing phrases " + values + ": " + e.getMessage());
+                return null;
+            }
+        } else if (Condition.FUZZY_EQUALS.equals(condition)) {
+            try {
+                return new FuzzyEqualsMatcher(values);
+            } catch (IllegalArgumentException e) {
+                StaticUtil.log("Error parsing fuzzy candidates " + values + ": " + e.getMessage());
+                return null;
+            }
         }
         return null;
     }
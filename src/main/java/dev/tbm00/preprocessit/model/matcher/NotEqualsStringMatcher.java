@@ -1,23 +1,23 @@
 package dev.tbm00.preprocessit.model.matcher;
 
+import java.util.HashSet;
+import java.util.Set;
+
 public class NotEqualsStringMatcher implements MatcherInterface {
-    private String[] validValues;
+    private final Set<String> validValues = new HashSet<>();
     
     public NotEqualsStringMatcher(String values) {
-        this.validValues = values.split("\\|");
+        for (String v : values.split("\\|")) {
+            validValues.add(v.toUpperCase());
+        }
     }
     
     @Override
     public String match(String word) {
-        String upperWord = word.toUpperCase();
-
-        for (String v : validValues) {
-            String upperCandidate = v.toUpperCase();
-            if (upperWord.equals(upperCandidate)) {
-                return "";
-            }
+        if (validValues.contains(word.toUpperCase())) {
+            return "";
         }
         
         return word;
     }
-}
\ No newline at end of file
+}
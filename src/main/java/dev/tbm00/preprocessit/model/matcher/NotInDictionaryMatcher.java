@@ -0,0 +1,22 @@
+package dev.tbm00.preprocessit.model.matcher;
+
+import java.io.IOException;
+
+import dev.tbm00.preprocessit.model.data.WordDictionary;
+
+public class NotInDictionaryMatcher implements MatcherInterface {
+    private WordDictionary dictionary;
+
+    public NotInDictionaryMatcher(String values) throws IOException {
+        this.dictionary = WordDictionary.load(values);
+    }
+
+    @Override
+    public String match(String word) {
+        if (dictionary.contains(word)) {
+            return "";
+        }
+
+        return word;
+    }
+}
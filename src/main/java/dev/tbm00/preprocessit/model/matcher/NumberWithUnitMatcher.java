@@ -0,0 +1,89 @@
+package dev.tbm00.preprocessit.model.matcher;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import dev.tbm00.preprocessit.model.data.Node;
+import dev.tbm00.preprocessit.model.data.Token;
+
+/**
+ * Matches a number within a range followed by one of a set of unit aliases, like {@code 5.91ms}, {@code 9 ms} or
+ * {@code 2. milliseCONDs}, in one scan, returning the number as written (so {@code KEEP_MATCH} keeps just the number).
+ *
+ * <p>Expects {@code "min,max,unit|unit|..."}; units are case insensitive. Wrapping the units in {@code [...]}, as in
+ * {@code "0,50,[ms|milliseconds]"}, captures the unit instead: the matched string is then the unit as written. The
+ * word must be the number (an optional sign, digits and at most one decimal point) immediately followed by, or
+ * separated by spaces from, a unit. When the working token is just the number, {@link #matchSequence(String, Node)}
+ * also matches it when the next (unprocessed) token is just a unit.</p>
+ */
+public class NumberWithUnitMatcher implements TokenSequenceMatcherInterface {
+    private final double min;
+    private final double max;
+    private final Set<String> units = new HashSet<>();
+    private final boolean captureUnit;
+
+    public NumberWithUnitMatcher(String values) {
+        // expects "min,max,unit|unit|..." or "min,max,[unit|unit|...]"
+        String[] parts = values.split(",", 3);
+        if (parts.length < 3) throw new IllegalArgumentException("expected min,max,unit|unit|...");
+        this.min = Double.parseDouble(parts[0]);
+        this.max = Double.parseDouble(parts[1]);
+        String unitList = parts[2].trim();
+        this.captureUnit = unitList.length() > 2 && unitList.startsWith("[") && unitList.endsWith("]");
+        if (captureUnit) unitList = unitList.substring(1, unitList.length() - 1);
+        for (String unit : unitList.split("\\|")) {
+            if (!unit.trim().isEmpty()) units.add(unit.trim().toUpperCase());
+        }
+        if (units.isEmpty()) throw new IllegalArgumentException("no units given");
+    }
+
+    @Override
+    public String match(String word) {
+        int end = numberEnd(word);
+        if (end == 0) return "";
+        int unitStart = end;
+        while (unitStart < word.length() && word.charAt(unitStart) == ' ') unitStart++;
+        if (unitStart == word.length()) return "";
+        String unit = word.substring(unitStart);
+        if (!units.contains(unit.toUpperCase())) return "";
+        String number = inRange(word.substring(0, end));
+        return (captureUnit && !number.isEmpty()) ? unit : number;
+    }
+
+    @Override
+    public TokenSequenceMatch matchSequence(String word, Node<Token> next) {
+        String number = match(word);
+        if (!number.isEmpty()) return new TokenSequenceMatch(number, null);
+
+        int end = numberEnd(word);
+        if (end == 0 || end != word.length() || next == null || next.getData().isProcessed()) return null;
+        String unit = next.getData().getValue().trim();
+        if (!units.contains(unit.toUpperCase())) return null;
+        number = inRange(word);
+        if (number.isEmpty()) return null;
+        return new TokenSequenceMatch(captureUnit ? unit : number, next);
+    }
+
+    private String inRange(String number) {
+        try {
+            double value = Double.parseDouble(number);
+            return (min <= value && value <= max) ? number : "";
+        } catch (NumberFormatException e) {
+            return "";
+        }
+    }
+
+    // Find the end of the number at the start of word, or 0 if it doesn't start with one
+    private static int numberEnd(String word) {
+        int i = 0, length = word.length();
+        if (i < length && (word.charAt(i) == '-' || word.charAt(i) == '+')) i++;
+        boolean digits = false, point = false;
+        for (; i < length; i++) {
+            char c = word.charAt(i);
+            if (c >= '0' && c <= '9') digits = true;
+            else if (c == '.' && !point) point = true;
+            else break;
+        }
+        return digits ? i : 0;
+    }
+}
@@ -0,0 +1,223 @@
+package dev.tbm00.preprocessit.model.matcher;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import dev.tbm00.preprocessit.model.data.Node;
+import dev.tbm00.preprocessit.model.data.Token;
+
+/**
+ * Matches a sequence of adjacent tokens against one or more phrases, each a sequence of token predicates.
+ *
+ * <p>Expects {@code "phrase;phrase;..."}, each phrase being whitespace-separated elements that each match one token:
+ * {@code a|b|c} matches any of the words (case insensitive), {@code {number}} any number, {@code {number:min,max}} a
+ * number in that range, and {@code {any}} any token. Wrapping one element in {@code [...]} captures it: the matched
+ * string is then that token, rather than all the matched tokens joined by spaces. For example,
+ * {@code "[{number:59,361}] hz|hertz;refresh rate [{number}]"} matches {@code 120 hz} as {@code 120}.</p>
+ *
+ * <p>The phrases are compiled at config load into a token-level automaton (a trie of elements, shared between
+ * phrases with a common start), which is run once over the working token and the unprocessed tokens after it, so
+ * every phrase is tried in the same pass. The longest match wins, then the phrase listed first. Looking at anything
+ * other than the working token, the word is split on spaces and the phrase has to start at its first word.</p>
+ */
+public class PhraseMatcher implements TokenSequenceMatcherInterface {
+    private static final TokenSequenceMatch NO_MATCH = new TokenSequenceMatch("", null);
+
+    private final State start = new State();
+
+    public PhraseMatcher(String values) {
+        // expects "phrase;phrase;..."
+        int order = 0;
+        for (String phrase : values.split(";")) {
+            String[] elements = phrase.trim().split("\\s+");
+            if (elements.length == 0 || elements[0].isEmpty()) continue;
+            State state = start;
+            int capture = -1;
+            for (int i = 0; i < elements.length; i++) {
+                String element = elements[i];
+                if (element.length() > 2 && element.startsWith("[") && element.endsWith("]")) {
+                    if (capture >= 0) throw new IllegalArgumentException("more than one captured element in: " + phrase);
+                    capture = i;
+                    element = element.substring(1, element.length() - 1);
+                }
+                state = state.then(element);
+            }
+            if (state.order < 0) {
+                state.order = order;
+                state.capture = capture;
+            }
+            order++;
+        }
+        if (order == 0) throw new IllegalArgumentException("no phrases given");
+    }
+
+    @Override
+    public String match(String word) {
+        String[] words = word.trim().split(" +");
+        return run(words[0], null, words).getMatchedString();
+    }
+
+    @Override
+    public TokenSequenceMatch matchSequence(String word, Node<Token> next) {
+        TokenSequenceMatch match = run(word, next, null);
+        return match.getMatchedString().isEmpty() ? null : match;
+    }
+
+    /**
+     * Runs the automaton over a sequence of words, given either as a first word and the nodes after it, or as an
+     * array.
+     *
+     * @param first the first word
+     * @param next  the node of the second word, or {@code null}
+     * @param words the words, or {@code null} to read them from the nodes
+     * @return the longest match, with an empty matched string if there's none
+     */
+    private TokenSequenceMatch run(String first, Node<Token> next, String[] words) {
+        if (start.predicates.isEmpty() && !start.literals.containsKey(first.toUpperCase())) return NO_MATCH;
+
+        List<State> active = new ArrayList<>();
+        List<State> following = new ArrayList<>();
+        List<String> matched = new ArrayList<>();
+        active.add(start);
+        State accepted = null;
+        int acceptedLength = 0;
+        Node<Token> acceptedLast = null;
+        Node<Token> node = null;
+
+        String word = first;
+        for (int index = 0; ; index++) {
+            matched.add(word);
+            following.clear();
+            String upper = word.toUpperCase();
+            for (State state : active) state.step(word, upper, following);
+            if (following.isEmpty()) break;
+            for (State state : following) {
+                if (state.order >= 0 && (accepted == null || index + 1 > acceptedLength
+                        || (index + 1 == acceptedLength && state.order < accepted.order))) {
+                    accepted = state;
+                    acceptedLength = index + 1;
+                    acceptedLast = node;
+                }
+            }
+            List<State> swap = active;
+            active = following;
+            following = swap;
+
+            // move on to the next word, skipping empty tokens and stopping at processed ones
+            if (words != null) {
+                if (index + 1 >= words.length) break;
+                word = words[index + 1];
+            } else {
+                node = (node == null) ? next : node.getNext();
+                while (node != null && !node.getData().isProcessed() && node.getData().getValue().isEmpty()) {
+                    node = node.getNext();
+                }
+                if (node == null || node.getData().isProcessed()) break;
+                word = node.getData().getValue();
+            }
+        }
+
+        if (accepted == null) return NO_MATCH;
+        String matchedString = (accepted.capture >= 0) ? matched.get(accepted.capture)
+                                                       : String.join(" ", matched.subList(0, acceptedLength));
+        return new TokenSequenceMatch(matchedString, acceptedLast);
+    }
+
+    private static class State {
+        /** The states reached by each element, keyed by the element (literal alternatives upper-cased and sorted). */
+        private final Map<String, State> elements = new HashMap<>();
+        /** The states reached by a literal (upper-cased) word. */
+        private final Map<String, List<State>> literals = new HashMap<>();
+        /** The predicates leading out of this state. */
+        private final List<Predicate> predicates = new ArrayList<>();
+        /** The order of the phrase accepted here, or -1 if none is. */
+        private int order = -1;
+        /** The index of the accepted phrase's captured element, or -1 to capture the whole match. */
+        private int capture = -1;
+
+        /**
+         * Gets (or adds) the state reached from this one by an element.
+         *
+         * @param element the element
+         * @return the state
+         */
+        private State then(String element) {
+            boolean isPredicate = element.startsWith("{") && element.endsWith("}");
+            TreeSet<String> alternatives = new TreeSet<>();
+            if (!isPredicate) {
+                for (String alternative : element.split("\\|")) alternatives.add(alternative.toUpperCase());
+            }
+            String key = isPredicate ? element.toLowerCase() : String.join("|", alternatives);
+            State target = elements.get(key);
+            if (target != null) return target;
+
+            target = new State();
+            elements.put(key, target);
+            if (isPredicate) {
+                predicates.add(new Predicate(element.substring(1, element.length() - 1), target));
+            } else {
+                for (String alternative : alternatives) {
+                    literals.computeIfAbsent(alternative, k -> new ArrayList<>(1)).add(target);
+                }
+            }
+            return target;
+        }
+
+        /**
+         * Adds the states reached from this one by a word.
+         *
+         * @param word  the word
+         * @param upper the word, upper-cased
+         * @param into  the list to add them to
+         */
+        private void step(String word, String upper, List<State> into) {
+            List<State> literal = literals.get(upper);
+            if (literal != null) into.addAll(literal);
+            for (Predicate predicate : predicates) {
+                if (predicate.test(word)) into.add(predicate.target);
+            }
+        }
+    }
+
+    private static class Predicate {
+        private final State target;
+        private final boolean any;
+        private final double min;
+        private final double max;
+
+        private Predicate(String spec, State target) {
+            this.target = target;
+            // expects "any", "number" or "number:min,max"
+            if (spec.equalsIgnoreCase("any")) {
+                any = true;
+                min = Double.NEGATIVE_INFINITY;
+                max = Double.POSITIVE_INFINITY;
+            } else if (spec.equalsIgnoreCase("number")) {
+                any = false;
+                min = Double.NEGATIVE_INFINITY;
+                max = Double.POSITIVE_INFINITY;
+            } else if (spec.toLowerCase().startsWith("number:")) {
+                String[] bounds = spec.substring("number:".length()).split(",");
+                if (bounds.length != 2) throw new IllegalArgumentException("expected {number:min,max}, found: {" + spec + "}");
+                any = false;
+                min = Double.parseDouble(bounds[0]);
+                max = Double.parseDouble(bounds[1]);
+            } else {
+                throw new IllegalArgumentException("unknown element: {" + spec + "}");
+            }
+        }
+
+        private boolean test(String word) {
+            if (any) return true;
+            try {
+                double number = Double.parseDouble(word);
+                return min <= number && number <= max;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package dev.tbm00.preprocessit.model.matcher;
+
+import dev.tbm00.preprocessit.model.data.Node;
+import dev.tbm00.preprocessit.model.data.Token;
+
+/**
+ * The result of a {@link TokenSequenceMatcherInterface}: the matched string, and the last token of the sequence.
+ */
+public class TokenSequenceMatch {
+    private final String matchedString;
+    private final Node<Token> last;
+
+    /**
+     * Constructs a new TokenSequenceMatch.
+     *
+     * @param matchedString the matched string, never empty
+     * @param last          the last matched node after the working token's, or {@code null} if only the working
+     *                      token matched
+     */
+    public TokenSequenceMatch(String matchedString, Node<Token> last) {
+        this.matchedString = matchedString;
+        this.last = last;
+    }
+
+    public String getMatchedString() {
+        return matchedString;
+    }
+
+    public Node<Token> getLast() {
+        return last;
+    }
+}
@@ -0,0 +1,20 @@
+package dev.tbm00.preprocessit.model.matcher;
+
+import dev.tbm00.preprocessit.model.data.Node;
+import dev.tbm00.preprocessit.model.data.Token;
+
+/**
+ * A matcher that, when its qualifier looks at the working token, may match a sequence of adjacent tokens starting
+ * with it, rather than just the one word.
+ */
+public interface TokenSequenceMatcherInterface extends MatcherInterface {
+
+    /**
+     * Matches the working token together with the tokens after it.
+     *
+     * @param word the working token's working word
+     * @param next the node after the working token's, or {@code null} if it's the last
+     * @return the match, or {@code null} if there's none
+     */
+    abstract TokenSequenceMatch matchSequence(String word, Node<Token> next);
+}
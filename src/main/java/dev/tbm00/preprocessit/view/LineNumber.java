@@ -10,17 +10,21 @@ import java.beans.*;
 
 /**
  * A simplified line number component that attaches to a JTextArea
- * to display line numbers on the left side.
+ * (or a VirtualTextView) to display line numbers on the left side.
+ *
+ * Only the line numbers inside the current clip are painted.
  */
 public class LineNumber extends JPanel implements CaretListener, DocumentListener, PropertyChangeListener {
     private static final long serialVersionUID = 1L;
 
     private final JTextArea textArea;
+    private final VirtualTextView virtualView;
     private int lineHeight;
     private int currentDigits;
 
     public LineNumber(JTextArea textArea) {
         this.textArea = textArea;
+        this.virtualView = null;
         setForeground(Color.GRAY);
         setBackground(Color.LIGHT_GRAY);
         textArea.getDocument().addDocumentListener(this);
@@ -29,6 +33,19 @@ public class LineNumber extends JPanel implements CaretListener, DocumentListene
         setBorder(BorderFactory.createEmptyBorder(0, 5, 0, 5));
     }
 
+    public LineNumber(VirtualTextView virtualView) {
+        this.textArea = null;
+        this.virtualView = virtualView;
+        setForeground(Color.GRAY);
+        setBackground(Color.LIGHT_GRAY);
+        virtualView.addPropertyChangeListener(this);
+        setBorder(BorderFactory.createEmptyBorder(0, 5, 0, 5));
+    }
+
+    private JComponent getTarget() {
+        return (textArea != null) ? textArea : virtualView;
+    }
+
     @Override
     public Dimension getPreferredSize() {
         int lines = getLineCount();
@@ -37,23 +54,29 @@ public class LineNumber extends JPanel implements CaretListener, DocumentListene
             currentDigits = digits;
             FontMetrics fontMetrics = getFontMetrics(getFont());
             int width = digits * fontMetrics.charWidth('0');
-            return new Dimension(width + 10, textArea.getHeight());
+            return new Dimension(width + 10, getTarget().getHeight());
         }
-        return new Dimension(super.getPreferredSize().width, textArea.getHeight());
+        return new Dimension(super.getPreferredSize().width, getTarget().getHeight());
     }
 
     protected int getLineCount() {
-        return textArea.getLineCount();
+        return (textArea != null) ? textArea.getLineCount() : virtualView.getLineCount();
     }
 
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
+        Rectangle clip = g.getClipBounds();
+
+        if (virtualView != null) {
+            paintVirtualLineNumbers(g, clip);
+            return;
+        }
 
         FontMetrics fontMetrics = textArea.getFontMetrics(textArea.getFont());
         lineHeight = fontMetrics.getHeight();
-        int start = textArea.viewToModel(new Point(0,0));
-        int end = textArea.viewToModel(new Point(0, textArea.getHeight()));
+        int start = textArea.viewToModel(new Point(0, clip.y));
+        int end = textArea.viewToModel(new Point(0, clip.y + clip.height));
         
         // Convert to line numbers
         try {
@@ -71,6 +94,30 @@ public class LineNumber extends JPanel implements CaretListener, DocumentListene
         }
     }
 
+    private void paintVirtualLineNumbers(Graphics g, Rectangle clip) {
+        FontMetrics fontMetrics = virtualView.getFontMetrics(virtualView.getFont());
+        lineHeight = fontMetrics.getHeight();
+        Insets margin = virtualView.getInsets();
+        int offset = VirtualTextView.MARGIN + margin.top;
+        int startLine = Math.max(0, (clip.y - offset) / lineHeight);
+        int endLine = Math.min(virtualView.getLineCount() - 1, (clip.y + clip.height - offset) / lineHeight);
+
+        g.setFont(virtualView.getFont());
+        int y = offset + startLine * lineHeight + fontMetrics.getAscent();
+        for (int i = startLine; i <= endLine; i++) {
+            String lineNumber = String.valueOf(i + 1);
+            int x = getWidth() - fontMetrics.stringWidth(lineNumber) - 2;
+            g.drawString(lineNumber, x, y);
+            y += lineHeight;
+        }
+    }
+
+    // Call after the virtual view's source changed
+    public void linesChanged() {
+        revalidate();
+        repaint();
+    }
+
     // DocumentListener methods
     @Override
     public void insertUpdate(DocumentEvent e) {
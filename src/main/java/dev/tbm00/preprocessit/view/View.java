@@ -17,11 +17,13 @@ public class View extends JFrame {
     private JPanel textPanel;                           // holds: titleLabel + subLabel
     private JLabel titleLabel;                              // Label for title text
     private JLabel subLabel;                                // Label for instruction text
-    private JPanel controlPanel;                        // holds: buttonsContainer
+    private JPanel controlPanel;                        // holds: buttonsContainer + progressBar
     private JPanel buttonsContainer;                        // holds: control buttons
     private JButton inputComponentsButton;       		        // Button for inputting config as YML
     private JComboBox<String> componentSelector; 		        // Dropdown for selecting config component
     private JButton processDataButton;          		        // Button for triggering data process
+    private JButton cancelButton;                               // Button for cancelling a running process/save
+    private JProgressBar progressBar;                       // Progress of a running process/save
     private JPanel toolPanel;                       // holds: tool buttons
     private JButton inputDataButton;                    // Button for inputting data as CSV or TXT
     private JButton pasteDataButton;                    // Button for pasting data from clipboard
@@ -37,9 +39,13 @@ public class View extends JFrame {
     private JScrollPane inputScrollPane;            // scroll panel (left)
     private JTextArea inputTextArea;            		// input text screen (left)
     private LineNumber inputLineNumber;         		// line number component (left)
+    private VirtualTextView inputLinesView;             // file-backed input screen (left, swapped in for large files)
+    private LineNumber inputLinesNumber;                // line number component for inputLinesView
     private JScrollPane outputScrollPane;           // scroll panel (right)
     private JTextArea outputTextArea;           		// input text screen (right)
     private LineNumber outputLineNumber;        		// line number component (right)
+    private VirtualTextView outputLinesView;            // file-backed output screen (right, swapped in for large files)
+    private LineNumber outputLinesNumber;               // line number component for outputLinesView
 
 
     public View() {
@@ -121,10 +127,13 @@ public class View extends JFrame {
         Dimension preferredSize = componentSelector.getPreferredSize();
         componentSelector.setMaximumSize(preferredSize);
         processDataButton = new JButton("Process Data");
+        cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
 
         buttonsContainer.add(inputComponentsButton);
         buttonsContainer.add(componentSelector);
         buttonsContainer.add(processDataButton);
+        buttonsContainer.add(cancelButton);
 
         buttonsContainer.setAlignmentX(Component.LEFT_ALIGNMENT);
 
@@ -132,6 +141,12 @@ public class View extends JFrame {
         controlPanel = new JPanel();
         controlPanel.setLayout(new BorderLayout());
         controlPanel.add(buttonsContainer, BorderLayout.WEST);
+
+        // Progress bar below the buttons, idle until a process/save runs
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        progressBar.setString("Idle");
+        controlPanel.add(progressBar, BorderLayout.SOUTH);
     }
 
     private void initializeToolPanel() {
@@ -166,6 +181,12 @@ public class View extends JFrame {
         outputScrollPane = new JScrollPane(outputTextArea);
         outputScrollPane.setRowHeaderView(outputLineNumber);
 
+        // File-backed views, swapped into the scroll panes for inputs too large for a text area
+        inputLinesView = new VirtualTextView();
+        inputLinesNumber = new LineNumber(inputLinesView);
+        outputLinesView = new VirtualTextView();
+        outputLinesNumber = new LineNumber(outputLinesView);
+
         ioSplitPane = new JSplitPane(
                 JSplitPane.HORIZONTAL_SPLIT,
                 inputScrollPane,
@@ -174,6 +195,45 @@ public class View extends JFrame {
         ioSplitPane.setResizeWeight(0.5);
     }
 
+    // Show the given file-backed lines in place of the input text area
+    public void showInputLines(VirtualTextView.LineSource source) {
+        inputLinesView.setSource(source);
+        showInScrollPane(inputScrollPane, inputLinesView, inputLinesNumber);
+    }
+
+    // Show the (editable) input text area again
+    public void showInputEditor() {
+        inputLinesView.setSource(null);
+        showInScrollPane(inputScrollPane, inputTextArea, inputLineNumber);
+    }
+
+    // Show the given file-backed lines in place of the output text area
+    public void showOutputLines(VirtualTextView.LineSource source) {
+        outputLinesView.setSource(source);
+        showInScrollPane(outputScrollPane, outputLinesView, outputLinesNumber);
+    }
+
+    // Show the output text area again
+    public void showOutputEditor() {
+        outputLinesView.setSource(null);
+        showInScrollPane(outputScrollPane, outputTextArea, outputLineNumber);
+    }
+
+    // Call after the output file-backed lines grew
+    public void outputLinesChanged() {
+        outputLinesView.sourceChanged();
+        outputLinesNumber.linesChanged();
+    }
+
+    private void showInScrollPane(JScrollPane scrollPane, JComponent content, LineNumber lineNumber) {
+        if (scrollPane.getViewport().getView() != content) {
+            scrollPane.setViewportView(content);
+            scrollPane.setRowHeaderView(lineNumber);
+        }
+        lineNumber.linesChanged();
+        scrollPane.getViewport().setViewPosition(new Point(0, 0));
+    }
+
     public JButton getInputComponentsButton() {
         return inputComponentsButton;
     }
@@ -194,6 +254,14 @@ public class View extends JFrame {
         return processDataButton;
     }
 
+    public JButton getCancelButton() {
+        return cancelButton;
+    }
+
+    public JProgressBar getProgressBar() {
+        return progressBar;
+    }
+
     public JButton getCopyOutputButton() {
         return copyOutputButton;
     }
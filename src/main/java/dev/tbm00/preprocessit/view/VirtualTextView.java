@@ -0,0 +1,125 @@
+package dev.tbm00.preprocessit.view;
+
+import javax.swing.*;
+
+import java.awt.*;
+
+/**
+ * A read-only text view that paints only the rows currently visible, fetching each one from a {@link LineSource}.
+ *
+ * <p>Unlike a {@code JTextArea}, it never holds the whole text: scrolling through a file of millions of lines only
+ * ever touches the lines on screen. Its height is the line count times the line height (capped at the largest
+ * component size Swing can lay out), and its width grows to the widest line painted so far.</p>
+ */
+public class VirtualTextView extends JComponent implements Scrollable {
+    private static final long serialVersionUID = 1L;
+    static final int MARGIN = 4;
+
+    /**
+     * Supplies the lines shown by a {@code VirtualTextView}.
+     */
+    public interface LineSource {
+        int getLineCount();
+
+        String getLine(int index);
+    }
+
+    private LineSource source;
+    private int widestLine;
+
+    public VirtualTextView() {
+        setFont(UIManager.getFont("TextArea.font"));
+        setBackground(UIManager.getColor("TextArea.background"));
+        setForeground(UIManager.getColor("TextArea.foreground"));
+        setOpaque(true);
+    }
+
+    // Show the given lines (or nothing, if null)
+    public void setSource(LineSource source) {
+        this.source = source;
+        this.widestLine = 0;
+        sourceChanged();
+    }
+
+    public LineSource getSource() {
+        return source;
+    }
+
+    // Call after the source's lines changed (e.g. more were appended)
+    public void sourceChanged() {
+        revalidate();
+        repaint();
+    }
+
+    public int getLineCount() {
+        return (source == null) ? 0 : source.getLineCount();
+    }
+
+    public int getLineHeight() {
+        return getFontMetrics(getFont()).getHeight();
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        long height = (long) getLineCount() * getLineHeight() + 2 * MARGIN;
+        return new Dimension(widestLine + 2 * MARGIN, (int) Math.min(Integer.MAX_VALUE / 2, height));
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        if (source == null) return;
+
+        FontMetrics fontMetrics = g.getFontMetrics(getFont());
+        int lineHeight = fontMetrics.getHeight();
+        int first = Math.max(0, (clip.y - MARGIN) / lineHeight);
+        int last = Math.min(source.getLineCount() - 1, (clip.y + clip.height - MARGIN) / lineHeight);
+
+        g.setFont(getFont());
+        g.setColor(getForeground());
+        int widest = widestLine;
+        for (int i = first; i <= last; i++) {
+            String line = source.getLine(i).replace("\t", "    ");
+            g.drawString(line, MARGIN, MARGIN + i * lineHeight + fontMetrics.getAscent());
+            widest = Math.max(widest, fontMetrics.stringWidth(line));
+        }
+
+        // Grow horizontally once wider lines have been seen
+        if (widest > widestLine) {
+            widestLine = widest;
+            SwingUtilities.invokeLater(this::revalidate);
+        }
+    }
+
+    // Scrollable methods
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return (orientation == SwingConstants.VERTICAL)
+                ? getLineHeight()
+                : getFontMetrics(getFont()).charWidth('0');
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return (orientation == SwingConstants.VERTICAL) ? visibleRect.height : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        Container parent = getParent();
+        return parent instanceof JViewport && parent.getWidth() > getPreferredSize().width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        Container parent = getParent();
+        return parent instanceof JViewport && parent.getHeight() > getPreferredSize().height;
+    }
+}
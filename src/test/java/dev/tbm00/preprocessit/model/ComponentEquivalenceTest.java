@@ -0,0 +1,139 @@
+package dev.tbm00.preprocessit.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.yaml.snakeyaml.Yaml;
+
+import dev.tbm00.preprocessit.StaticUtil;
+import dev.tbm00.preprocessit.model.data.Component;
+
+/**
+ * Checks that neither the {@link ComponentOptimizer} nor the {@link ComponentCompiler} changes any line's output:
+ * every config is run on the same input interpreted as written, optimized, compiled, and both, and the outputs must
+ * be identical.
+ *
+ * <p>The input is {@code sample-input.txt} plus lines randomly assembled from its tokens.</p>
+ */
+public class ComponentEquivalenceTest {
+    private static final int RANDOM_LINES = 5000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void bundledConfig() throws IOException {
+        assertEquivalent("/config.yml");
+    }
+
+    @Test
+    public void optimizableConfig() throws IOException {
+        assertEquivalent("/equivalence.yml");
+    }
+
+    private void assertEquivalent(String config) throws IOException {
+        String[] lines = sampleLines();
+        for (String component : componentNames(config)) {
+            String[] reference = run(config, component, false, false, lines);
+            assertArrayEquals(component + " optimized", reference, run(config, component, true, false, lines));
+            assertArrayEquals(component + " compiled", reference, run(config, component, false, true, lines));
+            assertArrayEquals(component + " optimized and compiled", reference, run(config, component, true, true, lines));
+        }
+    }
+
+    /**
+     * Loads a copy of a config with its optimization and compilation toggles overridden, and processes the lines.
+     *
+     * @param config    The config's resource name.
+     * @param component The name of the component to run.
+     * @param optimize  Whether the optimizer runs on the loaded components.
+     * @param compile   Whether the loaded components are compiled.
+     * @param lines     The input lines.
+     * @return Each line's output, {@code null} for lines producing none.
+     */
+    private String[] run(String config, String component, boolean optimize, boolean compile, String[] lines) throws IOException {
+        Map<String, Object> data = loadYaml(config);
+        data.put(StaticUtil.KEY_OPTIMIZE_COMPONENTS, optimize);
+        data.put(StaticUtil.KEY_COMPILE_COMPONENTS, compile);
+        File copy = folder.newFile();
+        try (Writer writer = Files.newBufferedWriter(copy.toPath(), StandardCharsets.UTF_8)) {
+            new Yaml().dump(data, writer);
+        }
+
+        Model model = new Model();
+        model.getConfigHandler().loadConfig(copy);
+        model.setSelectedComponent(component);
+        Component selected = model.getSelectedComponent();
+        assertNotNull(component + " did not load", selected);
+        if (compile) assertNotNull(component + " did not compile", selected.getCompiled());
+
+        String[] outputs = new String[lines.length];
+        model.processLines(lines, outputs, 1, null);
+        return outputs;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> componentNames(String config) throws IOException {
+        Map<String, Object> components = (Map<String, Object>) loadYaml(config).get(StaticUtil.KEY_COMPONENTS);
+        List<String> names = new ArrayList<>(components.keySet());
+        assertFalse(config + " has no components", names.isEmpty());
+        return names;
+    }
+
+    private Map<String, Object> loadYaml(String config) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream(config)) {
+            assertNotNull("missing resource " + config, in);
+            return new Yaml().load(in);
+        }
+    }
+
+    private String[] sampleLines() throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (InputStream in = getClass().getResourceAsStream("/sample-input.txt")) {
+            assertNotNull("missing resource /sample-input.txt", in);
+            for (String line : new String(readAll(in), StandardCharsets.UTF_8).split("\\r?\\n")) lines.add(line);
+        }
+
+        List<String> tokens = new ArrayList<>();
+        for (String line : lines) {
+            for (String token : line.split(" ")) {
+                if (!token.isEmpty()) tokens.add(token);
+            }
+        }
+        Random random = new Random(38);
+        for (int i = 0; i < RANDOM_LINES; i++) {
+            StringBuilder line = new StringBuilder(random.nextBoolean() ? "EXAMPLE" : "");
+            int count = random.nextInt(12);
+            for (int j = 0; j < count; j++) {
+                if (line.length() > 0) line.append(random.nextInt(8) == 0 ? "  " : " ");
+                line.append(tokens.get(random.nextInt(tokens.size())));
+            }
+            lines.add(line.toString());
+        }
+        return lines.toArray(new String[0]);
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) out.write(buffer, 0, read);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,74 @@
+package dev.tbm00.preprocessit.model.matcher;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks {@link FuzzyEqualsMatcher}'s BK-tree lookup against a scan measuring every candidate.
+ */
+public class FuzzyEqualsMatcherTest {
+    private static final String ALPHABET = "abcdeAB";
+
+    @Test
+    public void matchesBruteForce() {
+        Random random = new Random(38);
+        for (int round = 0; round < 500; round++) {
+            int maxDistance = random.nextInt(5);
+            List<String> candidates = new ArrayList<>();
+            int count = 1 + random.nextInt(60);
+            for (int i = 0; i < count; i++) candidates.add(randomWord(random, 1, 8));
+            String values = maxDistance + "," + String.join("|", candidates);
+
+            FuzzyEqualsMatcher matcher = new FuzzyEqualsMatcher(values);
+            for (int i = 0; i < 50; i++) {
+                String word = (i % 5 == 0) ? candidates.get(random.nextInt(candidates.size())).toLowerCase()
+                                           : randomWord(random, 0, 10);
+                assertEquals(values + " :: " + word, bruteForce(maxDistance, candidates, word), matcher.match(word));
+            }
+        }
+    }
+
+    private static String bruteForce(int maxDistance, List<String> candidates, String word) {
+        String upper = word.toUpperCase();
+        for (String candidate : candidates) {
+            if (candidate.toUpperCase().equals(upper)) return candidate;
+        }
+        if (maxDistance == 0 || word.isEmpty()) return "";
+
+        String best = "";
+        int bestDistance = maxDistance + 1;
+        for (String candidate : candidates) {
+            int distance = levenshtein(upper, candidate.toUpperCase());
+            if (distance < bestDistance) {
+                best = candidate;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    private static int levenshtein(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) d[i][0] = i;
+        for (int j = 0; j <= b.length(); j++) d[0][j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = (a.charAt(i - 1) == b.charAt(j - 1)) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    private static String randomWord(Random random, int minLength, int maxLength) {
+        int length = minLength + random.nextInt(maxLength - minLength + 1);
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) word.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        return word.toString();
+    }
+}